@@ -0,0 +1,84 @@
+package jevm.nutshell.benchmarks;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.output.Result;
+import jevm.nutshell.output.ResultWriter;
+import jevm.nutshell.output.TextOutput;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output queries over an already scored text, and printing their results to a console
+ * discarding the bytes, one println per line against a ResultWriter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OutputBenchmark {
+
+    @Param({"10", "100"})
+    public int n;
+
+    private TextAnalyzer analyzer;
+    private List<ScoredWord> results;
+    private PrintStream console;
+    private ResultWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp(TextState state) {
+        analyzer = new TextAnalyzer(state.stopWords, TextState.DEFAULT_SCORING);
+        analyzer.addText(state.lines);
+        analyzer.analize();
+
+        results = analyzer.getKeywords(n);
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        console = new PrintStream(discard, true);  // as System.out
+        writer = ResultWriter.create(ResultWriter.Format.TEXT, new TextOutput(new OutputStreamWriter(discard)));
+    }
+
+    @Benchmark
+    public List<ScoredWord> keywords() {
+        return analyzer.getKeywords(n);
+    }
+
+    @Benchmark
+    public List<ScoredWord> keywordsSingle() {
+        return analyzer.getKeyWordsSingle(n);
+    }
+
+    @Benchmark
+    public List<ScoredWord> abstractLines() {
+        return analyzer.getAbstract(n);
+    }
+
+    @Benchmark
+    public void printlnResults() {
+        for (ScoredWord sw : results) {
+            console.println(sw);
+        }
+    }
+
+    @Benchmark
+    public void writeResults() throws IOException {
+        writer.write(Result.of(results));
+        writer.flush();
+    }
+}
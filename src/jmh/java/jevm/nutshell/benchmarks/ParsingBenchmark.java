@@ -0,0 +1,49 @@
+package jevm.nutshell.benchmarks;
+
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.engine.WordsGraph;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.MappedFileWordParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a words graph from a text file, one stage per benchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+    @Benchmark
+    public List<String> fileWordParser(TextState state) throws IOException {
+        try (FileWordParser parser = new FileWordParser(state.file, StandardCharsets.UTF_8)) {
+            return parser.getLines();
+        }
+    }
+
+    @Benchmark
+    public List<String> mappedFileWordParser(TextState state) throws IOException {
+        try (MappedFileWordParser parser = new MappedFileWordParser(state.file, StandardCharsets.UTF_8)) {
+            return parser.getLines();
+        }
+    }
+
+    @Benchmark
+    public List<String> keywordCandidates(TextState state) {
+        return new TextAnalyzer(state.stopWords, TextState.DEFAULT_SCORING).getKeywordCandidates(state.lines);
+    }
+
+    @Benchmark
+    public WordsGraph graphAddAll(TextState state) {
+        WordsGraph graph = new WordsGraph();
+        graph.addAll(state.candidates);
+        return graph;
+    }
+}
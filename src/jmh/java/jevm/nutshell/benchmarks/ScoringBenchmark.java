@@ -0,0 +1,62 @@
+package jevm.nutshell.benchmarks;
+
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.engine.TextShard;
+import jevm.nutshell.parser.FileWordParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring every word of a text with each method in TextAnalyzer.scoringOptions, alone and
+ * vs a corpus of all the bundled texts.  Scores are kept between queries, so each
+ * invocation scores a new analyzer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+
+    @Param({"DEGREE", "WEIGHTED_DEGREE", "ENTROPY", "RELATIVE_DEGREE", "FREQUENCY", "TF_IDF"})
+    public String scoring;
+
+    @Param({"false", "true"})
+    public boolean withCorpus;
+
+    private TextShard shard;
+    private TextAnalyzer prototype;  // with the corpus graph, or document frequencies for TF_IDF
+    private TextAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUpTrial(TextState state) throws IOException {
+        TextAnalyzer builder = new TextAnalyzer(state.stopWords, scoring);
+        shard = builder.createShard(state.lines);
+        if (withCorpus) {
+            for (String text : new String[] {"alice", "mobydick", "gastby", "old_man"}) {
+                File file = new File(TextState.RES_DIR, text + ".txt");
+                try (FileWordParser parser = new FileWordParser(file, StandardCharsets.UTF_8)) {
+                    builder.addCorpus(parser);
+                }
+            }
+        }
+        prototype = builder;
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation(TextState state) {
+        analyzer = new TextAnalyzer(prototype);  // corpus shared, scoring does not modify it
+        analyzer.addText(shard);
+    }
+
+    @Benchmark
+    public TextAnalyzer score() {
+        analyzer.analize();
+        return analyzer;
+    }
+}
@@ -0,0 +1,66 @@
+package jevm.nutshell.benchmarks;
+
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * One of the bundled res/ texts, optionally scaled up to a synthetic input that repeats
+ * it several times, together with its lines and keyword candidates.
+ * Benchmarks run from the project directory, -Dnutshell.res and -Dnutshell.stop change
+ * where texts and stop words are read from
+ */
+@State(Scope.Benchmark)
+public class TextState {
+
+    static final String DEFAULT_SCORING = "WEIGHTED_DEGREE";
+    static final String RES_DIR = System.getProperty("nutshell.res", "res");
+    static final String STOP_WORDS = System.getProperty("nutshell.stop", "stopwords_EN.txt");
+
+    @Param({"alice", "mobydick", "gastby", "old_man"})
+    public String text;
+
+    /* times the text is repeated in the input */
+    @Param({"1", "8"})
+    public int scale;
+
+    File file;
+    List<String> stopWords;
+    List<String> lines;
+    List<String> candidates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stopWords = new StopWordsFileReader(new File(STOP_WORDS)).getStopWords();
+        File source = new File(RES_DIR, text + ".txt");
+        if (scale == 1) {
+            file = source;
+        } else {
+            file = File.createTempFile("nutshell-" + text + "-x" + scale + "-", ".txt");
+            byte[] bytes = Files.readAllBytes(source.toPath());
+            try (OutputStream out = new FileOutputStream(file)) {
+                for (int i = 0; i < scale; i++) {
+                    out.write(bytes);
+                }
+            }
+        }
+        lines = new FileWordParser(file, StandardCharsets.UTF_8).getLines();
+        candidates = new TextAnalyzer(stopWords, DEFAULT_SCORING).getKeywordCandidates(lines);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (scale != 1) {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package jevm.nutshell.benchmarks;
+
+import jevm.nutshell.parser.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting and trimming with Tokenizer against the String.split and String.replaceAll
+ * calls it replaces, over the candidates and lines of a text
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Benchmark
+    public void splitRegex(TextState state, Blackhole blackhole) {
+        for (String candidate : state.candidates) {
+            blackhole.consume(candidate.split("\\s"));
+        }
+    }
+
+    @Benchmark
+    public void splitTokenizer(TextState state, Blackhole blackhole) {
+        for (String candidate : state.candidates) {
+            blackhole.consume(Tokenizer.splitWhitespace(candidate));
+        }
+    }
+
+    @Benchmark
+    public void trimRegex(TextState state, Blackhole blackhole) {
+        for (String line : state.lines) {
+            blackhole.consume(line.replaceAll("^[^a-zA-Z]+|[^a-zA-Z]+$", ""));
+        }
+    }
+
+    @Benchmark
+    public void trimTokenizer(TextState state, Blackhole blackhole) {
+        for (String line : state.lines) {
+            blackhole.consume(Tokenizer.trimToLetters(line));
+        }
+    }
+}
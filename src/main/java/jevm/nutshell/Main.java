@@ -1,15 +1,28 @@
 package jevm.nutshell;
 
+import jevm.nutshell.batch.BatchRunner;
 import jevm.nutshell.data.ScoredWord;
 import jevm.nutshell.parser.StopWordsFileReader;
+import jevm.nutshell.engine.ApproximateWordsGraph;
 import jevm.nutshell.engine.TextAnalyzer;
-import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.engine.TextShard;
+import jevm.nutshell.engine.MappedWordsGraph;
+import jevm.nutshell.engine.ScoringMethod;
+import jevm.nutshell.engine.WordsGraphSnapshot;
+import jevm.nutshell.metrics.Metrics;
+import jevm.nutshell.output.Result;
+import jevm.nutshell.output.ResultWriter;
+import jevm.nutshell.output.TextOutput;
+import jevm.nutshell.parser.MappedFileWordParser;
+import jevm.nutshell.server.NutshellServer;
 import jevm.nutshell.visualization.CloudVisualization;
 import me.tongfei.progressbar.ProgressBar;
 import org.apache.commons.cli.*;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class Main {
 
@@ -25,12 +38,21 @@ public class Main {
         boolean hasVisualization = false;
         String analysisKind = "";
         String corpusDir = "";
+        String snapshotFilename = "";
+        boolean isSnapshotSave = false;
+        long approximateBytes = 0;  // exact corpus if 0
+        boolean isServer = false;
+        int port = 0;
+        String batchInput = "";
+        BatchRunner.Format batchFormat = BatchRunner.Format.TSV;
         int n = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean hasStats = false;
         String visualizationFilename = "nutshell.html";
         String stopWordsFilename = "stopwords_EN.txt";  // default value may be changed in args
 
         /* parse command line arguments */
-        String usage  = "nutshell -f <source.txt> -om|-os|-oa <n> (-c <directory>) (-v) (-sc <option>)";
+        String usage  = "nutshell -f <source.txt> -om|-os|-oa <n> | -batch <dir|list> -om|-os|-oa <n> (-format tsv|jsonl) | -serve <port> (-c <directory> (-save <file> | -approx <MB>) | -load <file>) (-t <n>) (-v) (-sc <option>) (--stats)";
         Options options = new Options();
         options.addOption("h", false, "Show this help");
         options.addOption("f", true, "Source .txt file");
@@ -39,9 +61,17 @@ public class Main {
         options.addOption("oa", true, "Abstract output <n>");
         options.addOption("oat", true, "Abstract text output <n>");
         options.addOption("c", true, "Optional: Corpus differential analysis vs all .txt files in the supplied dir");
+        options.addOption("save", true, "Optional: Save the corpus graph built with -c to a snapshot file");
+        options.addOption("load", true, "Optional: Corpus differential analysis vs a snapshot saved with -save");
+        options.addOption("approx", true, "Optional: Keep the -c corpus approximately in <MB> megabytes, for corpora too big for memory");
+        options.addOption("batch", true, "Analyze all .txt files in a directory, or the files listed in a file, against the same corpus");
+        options.addOption("format", true, "Optional: Batch output format tsv or jsonl (default is tsv)");
+        options.addOption("serve", true, "Serve analysis over HTTP on <port> instead of analyzing a file");
+        options.addOption("t", true, "Optional: Threads used to process the corpus and serve requests (default is " + threads + ")");
         options.addOption("v", false, "Optional: Create Visualization nutshell.html file");
         options.addOption("sc", true, "Optional: Scoring options:" + Arrays.toString(scoringOptions));
         options.addOption("stop", true, "Optional: Stopwords file (default is " + stopWordsFilename + ")");
+        options.addOption(null, "stats", false, "Optional: Time each analysis stage, printed to stderr at the end or over JMX when serving");
 
 
         HelpFormatter helpFormatter = new HelpFormatter();
@@ -57,7 +87,21 @@ public class Main {
                 return;
             }
 
-            if (!cmd.hasOption("f")) {
+            if (cmd.hasOption("serve")) {
+                if (cmd.hasOption("f") || cmd.hasOption("v")) {
+                    throw new IllegalArgumentException();
+                }
+                isServer = true;
+                port = Integer.parseInt(cmd.getOptionValue("serve"));
+            } else if (cmd.hasOption("batch")) {
+                if (cmd.hasOption("f") || cmd.hasOption("v")) {
+                    throw new IllegalArgumentException();
+                }
+                batchInput = cmd.getOptionValue("batch");
+                if (cmd.hasOption("format")) {
+                    batchFormat = BatchRunner.Format.valueOf(cmd.getOptionValue("format").toUpperCase());
+                }
+            } else if (!cmd.hasOption("f")) {
                 throw new IllegalArgumentException();
             } else {
                 filename = cmd.getOptionValue("f");
@@ -69,10 +113,43 @@ public class Main {
 
             }
 
+            if (cmd.hasOption("save")) {
+                if (!cmd.hasOption("c") || cmd.hasOption("load")) {
+                    throw new IllegalArgumentException();
+                }
+                isSnapshotSave = true;
+                snapshotFilename = cmd.getOptionValue("save");
+            } else if (cmd.hasOption("load")) {
+                if (cmd.hasOption("c")) {
+                    throw new IllegalArgumentException();
+                }
+                isCorpus = true;
+                snapshotFilename = cmd.getOptionValue("load");
+            }
+
+            if (cmd.hasOption("approx")) {
+                if (!cmd.hasOption("c") || cmd.hasOption("save")) {
+                    throw new IllegalArgumentException();
+                }
+                approximateBytes = (long) (Double.parseDouble(cmd.getOptionValue("approx")) * (1 << 20));
+            }
+
+            if (cmd.hasOption("t")) {
+                threads = Integer.parseInt(cmd.getOptionValue("t"));
+                if (threads < 1) {
+                    throw new IllegalArgumentException();
+                }
+            }
+
             if (cmd.hasOption("v")) {
                 hasVisualization = true;
             }
 
+            if (cmd.hasOption("stats")) {
+                hasStats = true;
+                Metrics.setEnabled(true);
+            }
+
             if (cmd.hasOption("sc")) {
                 scoring = cmd.getOptionValue("sc");
                 if (!Arrays.asList(scoringOptions).contains(scoring)) {
@@ -94,7 +171,7 @@ public class Main {
                 analysisKind = "abstractText";
                 n = Integer.parseInt(cmd.getOptionValue("oat"));
 
-            } else {
+            } else if (!isServer) {
                 throw new IllegalArgumentException();
             }
 
@@ -111,87 +188,174 @@ public class Main {
             StopWordsFileReader stopReader = new StopWordsFileReader(new File(stopWordsFilename));
             List<String> stopWords = stopReader.getStopWords();
 
-            FileWordParser wordParser = new FileWordParser(new File(filename));
             TextAnalyzer analyzer = new TextAnalyzer(stopWords, scoring);
 
-            List<String> lines = wordParser.getLines();
+            /* text is streamed into the graph, only what the output needs is kept */
+            boolean isAbstract = analysisKind.equals("abstract") || analysisKind.equals("abstractText");
+            analyzer.setRetainLines(isAbstract);
+            analyzer.setRetainCandidates(analysisKind.equals("multi"));
+            boolean isBatch = !batchInput.isEmpty();
+            boolean needsFullCorpus = hasVisualization || analysisKind.equals("abstractText") && !isBatch;
+            if (ScoringMethod.valueOf(scoring).usesDocumentFrequency()) {
+                /* corpus is only counted as document frequencies, no graph to approximate, save, load nor view */
+                if (approximateBytes > 0 || isSnapshotSave || isCorpus && corpusDir.isEmpty()) {
+                    throw new IllegalArgumentException();
+                }
+                needsFullCorpus = false;
+            }
+            if (approximateBytes > 0) {
+                /* approximate corpus has no full corpus view */
+                analyzer.setApproximateCorpus(new ApproximateWordsGraph(approximateBytes));
+                needsFullCorpus = false;
+            }
+            if (isCorpus && corpusDir.isEmpty()) {
+                /* snapshot is used in place, a view would copy it to the heap and it has no lines */
+                needsFullCorpus = false;
+            }
+            analyzer.setRetainCorpusText(needsFullCorpus);
+
+            if (!isServer && !isBatch) {
+                try (MappedFileWordParser wordParser = new MappedFileWordParser(new File(filename))) {
+                    analyzer.addText(wordParser);
+                }
+            }
 
-            analyzer.addText(lines);
-            TextAnalyzer fullCorpusAnalyzer = new TextAnalyzer(stopWords, scoring);
+            if(isCorpus && corpusDir.isEmpty()) {
+                /* snapshot only has the graph, without lines there is no corpus abstract */
+                analyzer.addCorpus(new MappedWordsGraph(new File(snapshotFilename)));
+            } else if(isCorpus) {
+                processCorpus(corpusDir, analyzer, needsFullCorpus, threads);
+                if (isSnapshotSave) {
+                    WordsGraphSnapshot.write(analyzer.getCorpusGraph(), new File(snapshotFilename));
+                }
+            }
 
-            if(isCorpus) {
-                processCorpus(corpusDir, analyzer, fullCorpusAnalyzer);
+            if (isServer) {
+                /* requests are analyzed by copies of analyzer sharing its corpus */
+                NutshellServer server = new NutshellServer(analyzer, new InetSocketAddress(port), threads);
+                Metrics.registerMBean();  // may be enabled over JMX if --stats was not given
+                server.start();
+                System.out.println("Serving on port " + server.getPort());
+                return;
             }
 
+            if (isBatch) {
+                /* each document is analyzed by a copy of analyzer sharing its corpus */
+                BatchRunner batch = new BatchRunner(analyzer, analysisKind, n, batchFormat, threads);
+                Writer writer = new OutputStreamWriter(System.out);  // buffered by the batch
+                batch.run(BatchRunner.listInputs(new File(batchInput)), writer);
+                return;
+            }
+
+            /* full corpus is analyzed on its own over the graph analyzer already has */
+            TextAnalyzer fullCorpusAnalyzer = needsFullCorpus ? analyzer.getCorpusView() : null;
+
             switch (analysisKind) {
                 case "single":
                     keywords1 = analyzer.getKeyWordsSingle(n);
-                    if (isCorpus) keywords2 = fullCorpusAnalyzer.getKeyWordsSingle(n);
+                    if (fullCorpusAnalyzer != null) keywords2 = fullCorpusAnalyzer.getKeyWordsSingle(n);
 
                     break;
                 case "multi":
                     keywords1 = analyzer.getKeywords(n);
-                    if (isCorpus) keywords2 = fullCorpusAnalyzer.getKeywords(n);
+                    if (fullCorpusAnalyzer != null) keywords2 = fullCorpusAnalyzer.getKeywords(n);
 
                     break;
                 case "abstract":
                     keywords1 = analyzer.getAbstract(n);
-                    if (isCorpus) keywords2 = fullCorpusAnalyzer.getAbstract(n);
+                    if (fullCorpusAnalyzer != null) keywords2 = fullCorpusAnalyzer.getAbstract(n);
 
                     break;
                 case "abstractText":
                     out = analyzer.getTextAbstract(n);
-                    if (isCorpus) out = fullCorpusAnalyzer.getTextAbstract(n);
+                    if (fullCorpusAnalyzer != null) out = fullCorpusAnalyzer.getTextAbstract(n);
 
-                    System.out.println(out);
+                    print(Result.of(out));
                     return;
             }
 
             if(hasVisualization) {
                 CloudVisualization v = new CloudVisualization();
+                v.setThreads(threads);
                 v.addDataSet(filename, keywords1);
-                if (isCorpus) v.addDataSet("Full Corpus", keywords2);
+                if (fullCorpusAnalyzer != null) v.addDataSet("Full Corpus", keywords2);
                 v.createWordCloud(visualizationFilename);
             }
 
             /* print output to console */
-            for (ScoredWord sw : keywords1) {
-                System.out.println(sw);
-            }
+            print(Result.of(keywords1));
 
         } catch (ParseException | IllegalArgumentException e) {
             System.out.println("Invalid arguments");
             helpFormatter.printHelp(usage, options);
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.out.println(e.getLocalizedMessage());
+        } finally {
+            if (hasStats && !isServer) System.err.print(Metrics.summary());
         }
     }
 
     /**
-     * Process all txt files in the supplied directory
+     * Print a result to console, buffered and flushed once instead of a println per line
+     * @param result
+     * @throws IOException
+     */
+    private static void print(Result result) throws IOException {
+        ResultWriter writer = ResultWriter.create(ResultWriter.Format.TEXT, new TextOutput(new OutputStreamWriter(System.out)));
+        writer.write(result);
+        writer.flush();
+    }
+
+    /**
+     * Process all txt files in the supplied directory, files are parsed and their graphs
+     * built in parallel then added to the corpus of analyzer in directory order
      * @param corpusDir
      * @param analyzer
-     * @param fullCorpusAnalyzer used for showing vs corpus in visualization
-     * @throws FileNotFoundException
+     * @param retainText keep lines and candidates for the corpus view of analyzer
+     * @param threads number of files processed at the same time
+     * @throws IOException
      */
-    private static void processCorpus(String corpusDir, TextAnalyzer analyzer, TextAnalyzer fullCorpusAnalyzer) throws FileNotFoundException {
+    private static void processCorpus(String corpusDir, TextAnalyzer analyzer, boolean retainText,
+                                      int threads) throws IOException {
         File corpusDirFile;
         corpusDirFile = new File(corpusDir);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
         try (ProgressBar pb = new ProgressBar("corpus", corpusDirFile.listFiles().length * 3)) {
+            List<Future<TextShard>> shards = new ArrayList<>();
             for(File f : corpusDirFile.listFiles()) {
                 if (f.toString().endsWith(".txt")) {
-                    pb.setExtraMessage(f.toString());
-                    FileWordParser parserCorpus = new FileWordParser(f);
-                    List<String> lines = parserCorpus.getLines();
-                    pb.step();
-                    fullCorpusAnalyzer.addText(lines);  // used for reference visualization
-                    pb.step();
-                    analyzer.addCorpus(lines);
-                    pb.step();
+                    shards.add(executor.submit(() -> {
+                        pb.setExtraMessage(f.toString());
+                        TextShard shard;
+                        try (MappedFileWordParser parserCorpus = new MappedFileWordParser(f)) {
+                            shard = analyzer.createShard(parserCorpus, retainText);
+                        }
+                        pb.stepBy(2);
+                        return shard;
+                    }));
                 } else {
                     pb.stepBy(3);
                 }
             }
+
+            /* merge in directory order, same result as adding files one by one */
+            for (Future<TextShard> future : shards) {
+                analyzer.addCorpus(future.get());
+                pb.step();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Corpus processing interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
         }
     }
 }
@@ -0,0 +1,132 @@
+package jevm.nutshell.batch;
+
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.output.Result;
+import jevm.nutshell.output.ResultWriter;
+import jevm.nutshell.output.TextOutput;
+import jevm.nutshell.parser.MappedFileWordParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Analyze many documents against the same corpus in one process.  Documents are analyzed
+ * in parallel, each one by a new analyzer sharing stop words and corpus of a prototype,
+ * and one record per document is written in input order as soon as it is ready:
+ * <pre>
+ * TSV    file, milliseconds, then word and score columns or the text abstract
+ * JSONL  {"file": ..., "millis": ..., "keywords": [{"word": ..., "score": ...}, ...]}
+ *        or "abstract": ... for text abstracts and "error": ... if the document failed
+ * </pre>
+ */
+public class BatchRunner {
+
+    public enum Format { TSV, JSONL }
+
+    private final TextAnalyzer prototype;
+    private final String analysisKind;
+    private final int n;
+    private final Format format;
+    private final int threads;
+
+    /**
+     * @param prototype analyzer with the corpus, if any, must not change while running
+     * @param analysisKind one of "single", "multi", "abstract" or "abstractText" as in Main
+     * @param n number of results per document
+     * @param format
+     * @param threads number of documents analyzed at the same time
+     */
+    public BatchRunner(TextAnalyzer prototype, String analysisKind, int n, Format format, int threads) {
+        this.prototype = prototype;
+        this.analysisKind = analysisKind;
+        this.n = n;
+        this.format = format;
+        this.threads = threads;
+    }
+
+    /**
+     * Documents to analyze, all .txt files of a directory sorted by name or the files
+     * listed one per line in a text file
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    public static List<File> listInputs(File input) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (input.isDirectory()) {
+            File[] listed = input.listFiles((dir, name) -> name.endsWith(".txt"));
+            if (listed == null) throw new IOException(input + ": can not list directory");
+            Arrays.sort(listed);
+            files.addAll(Arrays.asList(listed));
+        } else {
+            for (String line : Files.readAllLines(input.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) files.add(new File(line.trim()));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Analyze all files writing one record per file to out
+     * @param files
+     * @param out flushed after each record
+     * @throws IOException if out can not be written
+     */
+    public void run(List<File> files, Writer out) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> results = new ArrayList<>(files.size());
+            for (File file : files) {
+                results.add(executor.submit(() -> analyze(file)));
+            }
+            ResultWriter writer = ResultWriter.create(ResultWriter.Format.valueOf(format.name()), new TextOutput(out));
+            for (Future<Result> future : results) {
+                writer.write(future.get());
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result analyze(File file) {
+        Result record = new Result(file.getPath());
+        long start = System.nanoTime();
+        try {
+            TextAnalyzer analyzer = new TextAnalyzer(prototype);
+            analyzer.setRetainLines(analysisKind.startsWith("abstract"));
+            analyzer.setRetainCandidates(analysisKind.equals("multi"));
+            try (MappedFileWordParser parser = new MappedFileWordParser(file)) {
+                analyzer.addText(parser);
+            }
+            switch (analysisKind) {
+                case "single":
+                    record.keywords = analyzer.getKeyWordsSingle(n);
+                    break;
+                case "multi":
+                    record.keywords = analyzer.getKeywords(n);
+                    break;
+                case "abstract":
+                    record.keywords = analyzer.getAbstract(n);
+                    break;
+                default:
+                    record.text = analyzer.getTextAbstract(n);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            record.error = e.getLocalizedMessage();
+        } catch (RuntimeException e) {
+            /* any failure is of this document only, the rest of the batch goes on */
+            record.error = e.toString();
+        }
+        record.millis = (System.nanoTime() - start) / 1e6;
+        return record;
+    }
+}
@@ -0,0 +1,86 @@
+package jevm.nutshell.data;
+
+/**
+ * Bloom filter of long keys in a fixed number of bits, tells if a key may have been
+ * added with no false negatives and a false positive rate that grows with the keys added
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long numBits;
+    private final int numHashes;
+
+    /**
+     * @param numBits size of the filter, at least 64
+     * @param numHashes bits set per key
+     */
+    public BloomFilter(long numBits, int numHashes) {
+        if (numBits < Long.SIZE || numBits / Long.SIZE > Integer.MAX_VALUE || numHashes < 1) {
+            throw new IllegalArgumentException("Invalid filter size " + numBits + "/" + numHashes);
+        }
+        bits = new long[(int) (numBits / Long.SIZE)];
+        this.numBits = (long) bits.length * Long.SIZE;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Copy of another filter
+     * @param other
+     */
+    public BloomFilter(BloomFilter other) {
+        bits = other.bits.clone();
+        numBits = other.numBits;
+        numHashes = other.numHashes;
+    }
+
+    /* splitmix64 finalizer */
+    private static long mix(long key) {
+        long h = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Add a key
+     * @param key
+     * @return true if the key was not in the filter, false if it may have been
+     */
+    public boolean add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        boolean isNew = false;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                isNew = true;
+            }
+        }
+        return isNew;
+    }
+
+    /**
+     * Check if a key may have been added
+     * @param key
+     * @return false if it was not added, true if it may have been
+     */
+    public boolean mayContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Size of the bits in bytes
+     * @return
+     */
+    public long getMemoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,152 @@
+package jevm.nutshell.data;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch of int counts keyed by long, a fixed size table of depth rows by width
+ * counters.  Estimates never fall below the true count and with probability 1 - delta
+ * exceed it by at most epsilon * total count, where epsilon = e / width and
+ * delta = e ^ -depth
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int[] counters;  // row after row
+    private long totalCount = 0;
+
+    /**
+     * @param width counters per row, sets the error bound
+     * @param depth number of rows, sets the probability of exceeding the error bound
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) throw new IllegalArgumentException("Invalid sketch size " + width + "x" + depth);
+        this.width = width;
+        this.depth = depth;
+        counters = new int[Math.multiplyExact(width, depth)];
+    }
+
+    /**
+     * Copy of another sketch
+     * @param other
+     */
+    public CountMinSketch(CountMinSketch other) {
+        width = other.width;
+        depth = other.depth;
+        counters = Arrays.copyOf(other.counters, other.counters.length);
+        totalCount = other.totalCount;
+    }
+
+    /**
+     * Sketch with the smallest size that meets the supplied error bounds
+     * @param epsilon maximum overestimate relative to the total count
+     * @param delta probability of exceeding the overestimate
+     * @return
+     */
+    public static CountMinSketch withErrorBounds(double epsilon, double delta) {
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    /* splitmix64 finalizer */
+    private static long mix(long key) {
+        long h = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /* row i uses h1 + i * h2, reduced to [0, width) by multiply and shift */
+    private int index(int row, long h1, long h2) {
+        long h = (h1 + row * h2) >>> 32;
+        return row * width + (int) ((h * width) >>> 32);
+    }
+
+    /**
+     * Add count to the key
+     * @param key
+     * @param count
+     */
+    public void add(long key, int count) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        /* conservative update, counters only grow up to the new estimate */
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(row, h1, h2)]);
+        }
+        estimate += count;
+        for (int row = 0; row < depth; row++) {
+            int i = index(row, h1, h2);
+            if (counters[i] < estimate) counters[i] = estimate;
+        }
+        totalCount += count;
+    }
+
+    /**
+     * Estimated count of the key, 0 if it was never added
+     * @param key
+     * @return
+     */
+    public int estimate(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, h1, h2)]);
+        }
+        return min;
+    }
+
+    /**
+     * Add all counts of another sketch of the same size
+     * @param other
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketch sizes differ");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Sum of all counts added
+     * @return
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Maximum overestimate relative to the total count
+     * @return
+     */
+    public double getEpsilon() {
+        return Math.E / width;
+    }
+
+    /**
+     * Probability of an estimate exceeding the true count by more than epsilon * total count
+     * @return
+     */
+    public double getDelta() {
+        return Math.exp(-depth);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Size of the counters in bytes
+     * @return
+     */
+    public long getMemoryBytes() {
+        return (long) counters.length * Integer.BYTES;
+    }
+}
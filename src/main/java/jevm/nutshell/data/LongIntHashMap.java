@@ -0,0 +1,197 @@
+package jevm.nutshell.data;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map of primitive long keys to int values with linear probing,
+ * avoids boxing and one entry object per mapping
+ */
+public class LongIntHashMap {
+
+    private static final long FREE_KEY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Receives each mapping when iterating the map
+     */
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+    private int threshold;
+
+    /* FREE_KEY marks empty slots so its mapping is kept apart */
+    private boolean hasFreeKey = false;
+    private int freeKeyValue;
+
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of mappings to hold without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Get value of the key or defaultValue if the key is not in the map
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public int get(long key, int defaultValue) {
+        if (key == FREE_KEY) return hasFreeKey ? freeKeyValue : defaultValue;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+            if (keys[i] == FREE_KEY) return defaultValue;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) return hasFreeKey;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return true;
+            if (keys[i] == FREE_KEY) return false;
+        }
+    }
+
+    /**
+     * Associate value with key replacing any previous value
+     * @param key
+     * @param value
+     */
+    public void put(long key, int value) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE_KEY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) rehash(keys.length << 1);
+    }
+
+    /**
+     * Add delta to the value of key, a missing key counts as zero
+     * @param key
+     * @param delta
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                size++;
+                freeKeyValue = 0;
+            }
+            hasFreeKey = true;
+            return freeKeyValue += delta;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE_KEY) {
+            if (keys[i] == key) return values[i] += delta;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        if (++size > threshold) rehash(keys.length << 1);
+        return delta;
+    }
+
+    /**
+     * Remove mapping of key, if present
+     * @param key
+     * @return true if the key was in the map
+     */
+    public boolean remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) return false;
+            hasFreeKey = false;
+            size--;
+            return true;
+        }
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == FREE_KEY) return false;
+            i = (i + 1) & mask;
+        }
+        /* shift back following entries of the probe sequence instead of leaving a tombstone */
+        int last = i;
+        for (i = (i + 1) & mask; keys[i] != FREE_KEY; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            boolean movable = last <= i ? (home <= last || home > i) : (home <= last && home > i);
+            if (movable) {
+                keys[last] = keys[i];
+                values[last] = values[i];
+                last = i;
+            }
+        }
+        keys[last] = FREE_KEY;
+        size--;
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int j = slot(key);
+                while (keys[j] != FREE_KEY) j = (j + 1) & mask;
+                keys[j] = key;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Call consumer with every mapping, order is unspecified
+     * @param consumer
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKey) consumer.accept(FREE_KEY, freeKeyValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        size = 0;
+        hasFreeKey = false;
+    }
+}
@@ -1,7 +1,7 @@
 
 package jevm.nutshell.data;
 
-public class ScoredWord implements Comparable {
+public class ScoredWord implements Comparable<ScoredWord> {
 
     public String word;
     public double score;
@@ -12,10 +12,9 @@ public class ScoredWord implements Comparable {
     }
 
     @Override
-    public int compareTo(Object o) {
-        if (!(o instanceof ScoredWord)) throw new IllegalArgumentException();
-        ScoredWord other = (ScoredWord) o;
-        return Double.compare(other.score, this.score);
+    public int compareTo(ScoredWord other) {
+        int diff = Double.compare(other.score, this.score);
+        return diff != 0 ? diff : this.word.compareTo(other.word); // ties sorted by word
     }
 
     @Override
@@ -0,0 +1,117 @@
+package jevm.nutshell.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Select the k best scored words out of any number of offered words keeping only a
+ * min-heap of the current best k, time is O(n log k) and memory O(k).
+ * Output is sorted as ScoredWord, descending score and ties by ascending word
+ */
+public class TopKSelector {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private String[] words;
+    private double[] scores;
+    private int size = 0;
+
+    /**
+     * @param k max number of words to keep
+     */
+    public TopKSelector(int k) {
+        this.k = Math.max(k, 0);
+        int capacity = Math.min(this.k, INITIAL_CAPACITY);
+        words = new String[capacity];
+        scores = new double[capacity];
+    }
+
+    /**
+     * true if word i ranks below word j
+     */
+    private boolean isWorse(int i, int j) {
+        int diff = Double.compare(scores[i], scores[j]);
+        return diff < 0 || diff == 0 && words[i].compareTo(words[j]) > 0;
+    }
+
+    /**
+     * Offer a word, kept only if it ranks among the best k seen so far
+     * @param word
+     * @param score
+     */
+    public void offer(String word, double score) {
+        if (size < k) {
+            if (size == words.length) {
+                int capacity = (int) Math.min(k, 2L * size);
+                words = Arrays.copyOf(words, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            words[size] = word;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (k > 0) {
+            /* root is the worst of the best k */
+            int diff = Double.compare(score, scores[0]);
+            if (diff > 0 || diff == 0 && word.compareTo(words[0]) < 0) {
+                words[0] = word;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isWorse(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && isWorse(left, worst)) worst = left;
+            if (right < size && isWorse(right, worst)) worst = right;
+            if (worst == i) break;
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String word = words[i];
+        words[i] = words[j];
+        words[j] = word;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    /**
+     * Number of words currently kept
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Best words offered so far, best first
+     * @return
+     */
+    public List<ScoredWord> getSorted() {
+        List<ScoredWord> output = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            output.add(new ScoredWord(words[i], scores[i]));
+        }
+        Collections.sort(output);
+        return output;
+    }
+}
@@ -0,0 +1,133 @@
+package jevm.nutshell.data;
+
+import java.util.Arrays;
+
+/**
+ * Interns words into dense int ids, ids are given in order of insertion starting at zero
+ */
+public class WordDictionary {
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private String[] words;
+    private int[] hashes;    // cached String.hashCode by id
+    private int[] slots;     // id + 1 of the word in each slot, 0 if empty
+    private int size = 0;
+    private int mask;
+
+    public WordDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of words to hold without resizing
+     */
+    public WordDictionary(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        words = new String[Math.max(16, expectedSize)];
+        hashes = new int[words.length];
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get the id of a word
+     * @param word
+     * @return id or -1 if word is not in the dictionary
+     */
+    public int getId(String word) {
+        int hash = word.hashCode();
+        for (int i = mix(hash) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int id = slots[i] - 1;
+            if (hashes[id] == hash && words[id].equals(word)) return id;
+        }
+        return -1;
+    }
+
+    /**
+     * Same as getId(String) for the word formed by chars [from, to) of a char sequence
+     * lower cased char by char with Character.toLowerCase, without creating a lower case
+     * substring
+     * @param s
+     * @param from
+     * @param to
+     * @return id or -1 if the lower cased word is not in the dictionary
+     */
+    public int getIdLowerCase(CharSequence s, int from, int to) {
+        int hash = 0;
+        for (int k = from; k < to; k++) {
+            hash = 31 * hash + Character.toLowerCase(s.charAt(k));
+        }
+        for (int i = mix(hash) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int id = slots[i] - 1;
+            if (hashes[id] == hash && contentEqualsLowerCase(words[id], s, from, to)) return id;
+        }
+        return -1;
+    }
+
+    private static boolean contentEqualsLowerCase(String word, CharSequence s, int from, int to) {
+        if (word.length() != to - from) return false;
+        for (int k = 0; k < word.length(); k++) {
+            if (word.charAt(k) != Character.toLowerCase(s.charAt(from + k))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add a word if it is not in the dictionary
+     * @param word
+     * @return id of the word
+     */
+    public int add(String word) {
+        int hash = word.hashCode();
+        int i = mix(hash) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            int id = slots[i] - 1;
+            if (hashes[id] == hash && words[id].equals(word)) return id;
+        }
+
+        int id = size++;
+        if (id == words.length) {
+            words = Arrays.copyOf(words, id << 1);
+            hashes = Arrays.copyOf(hashes, id << 1);
+        }
+        words[id] = word;
+        hashes[id] = hash;
+        slots[i] = id + 1;
+        if (size > slots.length * LOAD_FACTOR) rehash(slots.length << 1);
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int i = mix(hashes[id]) & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = id + 1;
+        }
+    }
+
+    /**
+     * @param id
+     * @return word with the given id
+     */
+    public String getWord(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("word id " + id);
+        return words[id];
+    }
+
+    /**
+     * Number of words, ids go from 0 to size() - 1
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,244 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.BloomFilter;
+import jevm.nutshell.data.CountMinSketch;
+import jevm.nutshell.metrics.Metrics;
+import jevm.nutshell.parser.Tokenizer;
+
+/**
+ * Words graph for corpora too big to keep exactly, in a fixed memory budget instead of
+ * per word arrays and an edge map.  Word counters, including the edge weights summed
+ * into weighted degrees, are kept in count-min sketches and which words and edges have
+ * been seen in Bloom filters.  Words are not stored, their ids are 31 bit hashes so
+ * there is no way to list them, only to look up the counters of a given word.
+ * <p>
+ * Frequencies and weighted degrees never fall below the exact ones and exceed them by
+ * at most epsilon times the total of each counter with probability 1 - delta.  Degrees
+ * only count an edge when the edge filter did not have it, so false positives of the
+ * filter lower them while the sketches raise them.  Any change is taken as a change of
+ * every word by isModifiedSince
+ */
+public class ApproximateWordsGraph implements WordStatistics {
+
+    public static final int DEFAULT_DEPTH = 4;
+    private static final int NUM_SKETCHES = 5;
+    private static final int NUM_HASHES = 5;
+
+    private final CountMinSketch frequency;
+    private final CountMinSketch inDegree;
+    private final CountMinSketch outDegree;
+    private final CountMinSketch weightedInDegree;
+    private final CountMinSketch weightedOutDegree;
+    private final BloomFilter words;
+    private final BloomFilter edges;
+    private long totalFrequency = 0;
+    private int modCount = 0;
+
+    /**
+     * @param memoryBytes memory used by all counters
+     */
+    public ApproximateWordsGraph(long memoryBytes) {
+        this(memoryBytes, DEFAULT_DEPTH);
+    }
+
+    /**
+     * @param memoryBytes memory used by all counters
+     * @param depth rows of each sketch, the probability of exceeding the error bound is e ^ -depth
+     */
+    public ApproximateWordsGraph(long memoryBytes, int depth) {
+        /* a sixteenth for seen words, a quarter for seen edges and the rest for counters */
+        long wordBits = memoryBytes / 16 * Byte.SIZE;
+        long edgeBits = memoryBytes / 4 * Byte.SIZE;
+        long width = (memoryBytes - memoryBytes / 16 - memoryBytes / 4) / ((long) NUM_SKETCHES * depth * Integer.BYTES);
+        if (wordBits < Long.SIZE || width < 1 || width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid memory budget " + memoryBytes);
+        }
+        frequency = new CountMinSketch((int) width, depth);
+        inDegree = new CountMinSketch((int) width, depth);
+        outDegree = new CountMinSketch((int) width, depth);
+        weightedInDegree = new CountMinSketch((int) width, depth);
+        weightedOutDegree = new CountMinSketch((int) width, depth);
+        words = new BloomFilter(wordBits, NUM_HASHES);
+        edges = new BloomFilter(edgeBits, NUM_HASHES);
+    }
+
+    /**
+     * Copy of another graph
+     * @param other
+     */
+    public ApproximateWordsGraph(ApproximateWordsGraph other) {
+        frequency = new CountMinSketch(other.frequency);
+        inDegree = new CountMinSketch(other.inDegree);
+        outDegree = new CountMinSketch(other.outDegree);
+        weightedInDegree = new CountMinSketch(other.weightedInDegree);
+        weightedOutDegree = new CountMinSketch(other.weightedOutDegree);
+        words = new BloomFilter(other.words);
+        edges = new BloomFilter(other.edges);
+        totalFrequency = other.totalFrequency;
+        modCount = other.modCount;
+    }
+
+    /* 64 bit FNV-1a of the chars folded to a non negative int */
+    private static int hashWord(String word) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            h = (h ^ word.charAt(i)) * 0x100000001B3L;
+        }
+        return (int) ((h ^ (h >>> 31)) >>> 33);
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    /**
+     * Add a single word to the graph
+     * @param word
+     */
+    public void addWord(String word) {
+        if (word == null || word.equals("")) return;
+        modCount++;
+        int id = hashWord(word);
+        words.add(id);
+        frequency.add(id, 1);
+        totalFrequency++;
+    }
+
+    /**
+     * Add an edge to the graph, same as WordsGraph.addEdge only the frequency of the
+     * first word is updated
+     * @param from
+     * @param to
+     */
+    public void addEdge(String from, String to) {
+        if (from == null || from.equals("")) return;
+        modCount++;
+        int fromId = hashWord(from);
+        words.add(fromId);
+        if (to != null && !to.equals("")) {
+            int toId = hashWord(to);
+            words.add(toId);
+            addEdgeWeight(fromId, toId, 1);
+        }
+        frequency.add(fromId, 1);
+        totalFrequency++;
+    }
+
+    private void addEdgeWeight(int fromId, int toId, int weight) {
+        if (edges.add(edgeKey(fromId, toId))) {
+            outDegree.add(fromId, 1);
+            inDegree.add(toId, 1);
+        }
+        weightedInDegree.add(fromId, weight);
+        weightedOutDegree.add(toId, weight);
+    }
+
+    /**
+     * Add a string of words split as per WordsGraph.DEFAULT_WORD_DELIMITER
+     * @param s
+     */
+    public void addString(String s) {
+        long start = Metrics.start();
+        String[] words = Tokenizer.splitWhitespace(s);
+        if (words.length == 0) return;
+
+        for (int i = 0; i < words.length - 1; i++) {
+            addEdge(words[i], words[i + 1]);
+        }
+        addWord(words[words.length - 1]);
+        Metrics.stop(Metrics.Stage.GRAPH, start);
+        Metrics.count(Metrics.Counter.WORDS, words.length);
+        Metrics.count(Metrics.Counter.EDGES, words.length - 1);
+    }
+
+    /**
+     * Add all words and edges of an exact graph, e.g. a shard built in parallel
+     * @param other
+     */
+    public void merge(WordsGraph other) {
+        long start = Metrics.start();
+        modCount++;
+        int[] ids = new int[other.getIdBound()];
+        for (int otherId = 0; otherId < ids.length; otherId++) {
+            int id = hashWord(other.getWord(otherId));
+            ids[otherId] = id;
+            words.add(id);
+            frequency.add(id, other.frequency[otherId]);
+        }
+
+        other.weightedEdges.forEach((key, weight) ->
+                addEdgeWeight(ids[(int) (key >>> 32)], ids[(int) key], weight));
+        totalFrequency += other.getTotalFrequency();
+        Metrics.stop(Metrics.Stage.GRAPH, start);
+    }
+
+    @Override
+    public int getWordId(String word) {
+        int id = hashWord(word);
+        return words.mayContain(id) ? id : -1;
+    }
+
+    @Override
+    public int getFrequency(int id) {
+        return frequency.estimate(id);
+    }
+
+    @Override
+    public int getInDegree(int id) {
+        return inDegree.estimate(id);
+    }
+
+    @Override
+    public int getOutDegree(int id) {
+        return outDegree.estimate(id);
+    }
+
+    @Override
+    public int getWeightedInDegree(int id) {
+        return weightedInDegree.estimate(id);
+    }
+
+    @Override
+    public int getWeightedOutDegree(int id) {
+        return weightedOutDegree.estimate(id);
+    }
+
+    @Override
+    public long getTotalFrequency() {
+        return totalFrequency;
+    }
+
+    @Override
+    public int getModCount() {
+        return modCount;
+    }
+
+    @Override
+    public boolean isModifiedSince(int id, int modCount) {
+        return this.modCount > modCount;
+    }
+
+    /**
+     * Maximum overestimate of frequencies and weighted degrees relative to their totals
+     * @return
+     */
+    public double getEpsilon() {
+        return frequency.getEpsilon();
+    }
+
+    /**
+     * Probability of exceeding the maximum overestimate
+     * @return
+     */
+    public double getDelta() {
+        return frequency.getDelta();
+    }
+
+    /**
+     * Size of all counters in bytes
+     * @return
+     */
+    public long getMemoryBytes() {
+        return NUM_SKETCHES * frequency.getMemoryBytes() + words.getMemoryBytes() + edges.getMemoryBytes();
+    }
+}
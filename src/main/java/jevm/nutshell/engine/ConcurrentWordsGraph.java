@@ -0,0 +1,211 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.LongIntHashMap;
+import jevm.nutshell.data.WordDictionary;
+import jevm.nutshell.parser.Tokenizer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Words graph that several threads may add to at the same time without a global lock,
+ * counts follow the same rules as WordsGraph.  Words are kept in a ConcurrentHashMap with
+ * LongAdder counters and each word keeps the weights of its outgoing edges.
+ * Reads while other threads add see each counter up to date on its own but not a
+ * consistent view of the whole graph, use toWordsGraph once adding is done to analyze it
+ */
+public class ConcurrentWordsGraph {
+
+    private static class Node {
+        final LongAdder frequency = new LongAdder();
+        final LongAdder inDegree = new LongAdder();
+        final LongAdder outDegree = new LongAdder();
+        final LongAdder weightedInDegree = new LongAdder();
+        final LongAdder weightedOutDegree = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> edges = new ConcurrentHashMap<>(4);
+    }
+
+    private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+    private final LongAdder numEdges = new LongAdder();
+    private final LongAdder numWeightedEdges = new LongAdder();
+    private final LongAdder totalFrequency = new LongAdder();
+
+    /**
+     * Get the node of a word, adding it if it is not in the graph
+     */
+    private Node node(String word) {
+        Node node = nodes.get(word);  // avoid locking in computeIfAbsent when word exists
+        return node != null ? node : nodes.computeIfAbsent(word, w -> new Node());
+    }
+
+    /**
+     * Add a collection of strings to the graph, each string is split as per default
+     * value WordsGraph.DEFAULT_WORD_DELIMITER
+     * @param collection
+     */
+    public void addAll(Collection<String> collection) {
+        for (String sentence : collection) {
+            addString(sentence);
+        }
+    }
+
+    /**
+     * Add a single word to the graph
+     * @param word
+     */
+    public void addWord(String word) {
+        if (word == null || word.equals("")) return;
+        node(word).frequency.increment();
+        totalFrequency.increment();
+    }
+
+    /**
+     * Add a new edge to the graph, if either word is not in the graph it
+     * will be added first.  Only the frequency of the first word is updated
+     * so addWord(to) needs to be called afterwards.
+     * @param from
+     * @param to
+     */
+    public void addEdge(String from, String to) {
+        if (from == null || from.equals("")) return;
+
+        Node fromNode = node(from);
+        if (to != null && !to.equals("")) {
+            Node toNode = node(to);
+            LongAdder weight = fromNode.edges.get(to);
+            if (weight == null) {
+                LongAdder added = new LongAdder();
+                weight = fromNode.edges.putIfAbsent(to, added);
+                if (weight == null) {
+                    // only the thread that added the edge updates degrees
+                    weight = added;
+                    fromNode.outDegree.increment();
+                    toNode.inDegree.increment();
+                    numEdges.increment();
+                }
+            }
+            weight.increment();
+            fromNode.weightedInDegree.increment();
+            toNode.weightedOutDegree.increment();
+            numWeightedEdges.increment();
+        }
+
+        fromNode.frequency.increment(); // freq only updated in from to avoid double counting
+        totalFrequency.increment();
+    }
+
+    /**
+     * Add a new string which may contain several words in which case each it is split
+     * as per default value WordsGraph.DEFAULT_WORD_DELIMITER
+     * @param s
+     */
+    public void addString(String s) {
+        String[] words = Tokenizer.splitWhitespace(s);
+        if (words.length == 0) return;
+
+        for (int i = 0; i < words.length - 1; i++) {
+            addEdge(words[i], words[i + 1]);
+        }
+        addWord(words[words.length - 1]);
+    }
+
+    /**
+     * Get frequency of a word.
+     * If word is not in the graph returns -1
+     * @param s
+     * @return
+     */
+    public int getWordFreq(String s) {
+        Node node = nodes.get(s);
+        return node == null ? -1 : node.frequency.intValue();
+    }
+
+    /**
+     * Get word out-degree of unique edges going out
+     * If word is not in the graph returns -1
+     * @param s
+     * @return
+     */
+    public int getWordOutDegree(String s) {
+        Node node = nodes.get(s);
+        return node == null ? -1 : node.outDegree.intValue();
+    }
+
+    /**
+     * Get word in-degree of unique edges coming in
+     * If word is not in the graph returns -1
+     * @param s
+     * @return
+     */
+    public int getWordInDegree(String s) {
+        Node node = nodes.get(s);
+        return node == null ? -1 : node.inDegree.intValue();
+    }
+
+    /**
+     * Get the frequency this edge has been added to the graph
+     * If edge is not in the graph returns -1
+     * @param from
+     * @param to
+     * @return
+     */
+    public int getEdgeWeight(String from, String to) {
+        Node node = nodes.get(from);
+        LongAdder weight = node == null ? null : node.edges.get(to);
+        return weight == null ? -1 : weight.intValue();
+    }
+
+    public int getNumWords() {
+        return nodes.size();
+    }
+
+    public int getNumEdges() {
+        return numEdges.intValue();
+    }
+
+    public long getTotalFrequency() {
+        return totalFrequency.sum();
+    }
+
+    /**
+     * Copy into a WordsGraph for analysis, ids are given in alphabetical order of words.
+     * Should be called once no thread is adding to this graph
+     * @return
+     */
+    public WordsGraph toWordsGraph() {
+        List<String> words = new ArrayList<>(nodes.keySet());
+        Collections.sort(words);
+        int numWords = words.size();
+
+        WordsGraph graph = new WordsGraph();
+        graph.dictionary = new WordDictionary(numWords);
+        graph.frequency = new int[numWords];
+        graph.inDegree = new int[numWords];
+        graph.outDegree = new int[numWords];
+        graph.weightedInDegree = new int[numWords];
+        graph.weightedOutDegree = new int[numWords];
+        graph.lastModified = new int[numWords];
+        for (int id = 0; id < numWords; id++) {
+            Node node = nodes.get(words.get(id));
+            graph.dictionary.add(words.get(id));
+            graph.frequency[id] = node.frequency.intValue();
+            graph.inDegree[id] = node.inDegree.intValue();
+            graph.outDegree[id] = node.outDegree.intValue();
+            graph.weightedInDegree[id] = node.weightedInDegree.intValue();
+            graph.weightedOutDegree[id] = node.weightedOutDegree.intValue();
+            graph.totalFrequency += graph.frequency[id];
+        }
+
+        graph.weightedEdges = new LongIntHashMap(numEdges.intValue());
+        for (int id = 0; id < numWords; id++) {
+            long fromKey = (long) id << 32;
+            for (Map.Entry<String, LongAdder> e : nodes.get(words.get(id)).edges.entrySet()) {
+                graph.weightedEdges.put(fromKey | graph.dictionary.getId(e.getKey()), e.getValue().intValue());
+                graph.numEdges++;
+            }
+        }
+        graph.numWeightedEdges = numWeightedEdges.intValue();
+        return graph;
+    }
+}
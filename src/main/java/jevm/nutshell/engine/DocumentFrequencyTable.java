@@ -0,0 +1,114 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.WordDictionary;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Number of corpus documents containing each word, together with the number of documents
+ * and their total length.  Much smaller than a corpus graph, one int per distinct word and
+ * no edges, and all that is needed to weight text words by inverse document frequency
+ */
+public class DocumentFrequencyTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final WordDictionary words;
+    private int[] documentFrequency;
+    private int numDocuments = 0;
+    private long totalFrequency = 0;  // words in all documents
+    private int modCount = 0;
+
+    public DocumentFrequencyTable() {
+        words = new WordDictionary();
+        documentFrequency = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Copy of another table, e.g. to add documents to a table shared by other analyzers
+     * @param other
+     */
+    public DocumentFrequencyTable(DocumentFrequencyTable other) {
+        words = new WordDictionary(other.words.size());
+        for (int id = 0; id < other.words.size(); id++) {
+            words.add(other.words.getWord(id));
+        }
+        documentFrequency = Arrays.copyOf(other.documentFrequency, other.documentFrequency.length);
+        numDocuments = other.numDocuments;
+        totalFrequency = other.totalFrequency;
+        modCount = other.modCount;
+    }
+
+    /**
+     * Count a document, each of its distinct words once
+     * @param words distinct words of a single document
+     * @param length number of words of the document, counting repeated ones
+     */
+    public void addDocument(Set<String> words, long length) {
+        for (String word : words) {
+            increment(word, 1);
+        }
+        numDocuments++;
+        totalFrequency += length;
+        modCount++;
+    }
+
+    /**
+     * Add all documents of another table, e.g. one built in parallel
+     * @param other
+     */
+    public void merge(DocumentFrequencyTable other) {
+        for (int id = 0; id < other.words.size(); id++) {
+            increment(other.words.getWord(id), other.documentFrequency[id]);
+        }
+        numDocuments += other.numDocuments;
+        totalFrequency += other.totalFrequency;
+        modCount++;
+    }
+
+    private void increment(String word, int count) {
+        int id = words.add(word);
+        if (id == documentFrequency.length) {
+            documentFrequency = Arrays.copyOf(documentFrequency, id << 1);
+        }
+        documentFrequency[id] += count;
+    }
+
+    /**
+     * @param word
+     * @return number of documents containing word, 0 if none
+     */
+    public int getDocumentFrequency(String word) {
+        int id = words.getId(word);
+        return id < 0 ? 0 : documentFrequency[id];
+    }
+
+    public int getNumDocuments() {
+        return numDocuments;
+    }
+
+    /**
+     * Sum of the frequencies of all words of all documents
+     * @return
+     */
+    public long getTotalFrequency() {
+        return totalFrequency;
+    }
+
+    /**
+     * Number of distinct words
+     * @return
+     */
+    public int getNumWords() {
+        return words.size();
+    }
+
+    /**
+     * Number of changes made to the table, only grows
+     * @return
+     */
+    public int getModCount() {
+        return modCount;
+    }
+}
@@ -0,0 +1,130 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lines of a text in order together with the position of the first occurrence of each
+ * distinct line, found by a 64 bit hash of its content.  Abstracts go through distinct
+ * lines without copying them into a set and put the selected ones back in text order by
+ * sorting their positions instead of scanning the whole text
+ */
+class LineIndex {
+
+    private static final int MIN_COMPACT_LINES = 1024;
+
+    private List<String> lines = new ArrayList<>();
+    private BitSet removed = new BitSet();  // positions of lines removed
+    private int numRemoved = 0;
+    /* by key of each distinct line: position of its first line not removed and its count */
+    private LongIntHashMap firstPositions = new LongIntHashMap();
+    private LongIntHashMap counts = new LongIntHashMap();
+
+    /* 64 bit FNV-1a of the chars */
+    private static long hash(String line) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            h = (h ^ line.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    /* key of a line, next keys are tried if another line has the same hash */
+    private long key(String line) {
+        long key = hash(line);
+        for (int position = firstPositions.get(key, -1);
+             position >= 0 && !lines.get(position).equals(line);
+             position = firstPositions.get(key, -1)) {
+            key = key * 0x9E3779B97F4A7C15L + 1;
+        }
+        return key;
+    }
+
+    void add(String line) {
+        int position = lines.size();
+        lines.add(line);
+        long key = key(line);
+        if (counts.addTo(key, 1) == 1) {
+            firstPositions.put(key, position);
+        }
+    }
+
+    void addAll(Collection<String> newLines) {
+        for (String line : newLines) {
+            add(line);
+        }
+    }
+
+    /**
+     * Remove the first occurrence of a line
+     * @param line
+     * @throws IllegalArgumentException if the line is not in the index
+     */
+    void remove(String line) {
+        long key = key(line);
+        if (counts.get(key, 0) == 0) throw new IllegalArgumentException("Line not in index: " + line);
+
+        int position = firstPositions.get(key, -1);
+        removed.set(position);
+        numRemoved++;
+        if (counts.addTo(key, -1) > 0) {
+            /* next occurrence becomes the first one */
+            do {
+                position++;
+            } while (removed.get(position) || !lines.get(position).equals(line));
+            firstPositions.put(key, position);
+        }
+        if (numRemoved > MIN_COMPACT_LINES && numRemoved > lines.size() / 2) compact();
+    }
+
+    /* drop removed lines, positions are given again */
+    private void compact() {
+        List<String> remaining = new ArrayList<>(lines.size() - numRemoved);
+        for (int position = 0; position < lines.size(); position++) {
+            if (!removed.get(position)) remaining.add(lines.get(position));
+        }
+        lines = new ArrayList<>(remaining.size());
+        removed = new BitSet();
+        numRemoved = 0;
+        firstPositions = new LongIntHashMap(remaining.size());
+        counts = new LongIntHashMap(remaining.size());
+        addAll(remaining);
+    }
+
+    /**
+     * Pass each distinct line once to consumer, in no particular order
+     * @param consumer
+     */
+    void forEachDistinct(Consumer<String> consumer) {
+        firstPositions.forEach((key, position) -> {
+            if (counts.get(key, 0) > 0) consumer.accept(lines.get(position));
+        });
+    }
+
+    /**
+     * The supplied lines in the order they first appear in the text, each one once
+     * @param selected distinct lines of the text
+     * @return
+     */
+    List<String> inTextOrder(Collection<String> selected) {
+        int[] positions = new int[selected.size()];
+        int n = 0;
+        for (String line : selected) {
+            long key = key(line);
+            if (counts.get(key, 0) > 0) positions[n++] = firstPositions.get(key, -1);
+        }
+        Arrays.sort(positions, 0, n);
+
+        List<String> output = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            output.add(lines.get(positions[i]));
+        }
+        return output;
+    }
+}
@@ -0,0 +1,317 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.LongIntHashMap;
+import jevm.nutshell.data.WordDictionary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only words graph used in place from a snapshot file written by WordsGraphSnapshot.
+ * Dictionary, node counters and edges stay in the memory-mapped file, off the heap, so
+ * the graph costs no heap beyond this object and its pages are shared through the page
+ * cache by every analyzer and process mapping the same file.  Version 1 snapshots have
+ * no index on file, their word index is built on the heap when the file is opened.
+ * <p>
+ * All reads are absolute so a graph may be used from several threads
+ */
+public class MappedWordsGraph implements WordStatistics {
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int numWords;
+    private final int numEdges;
+    private final int numWeightedEdges;
+    private final int bytesStart;
+    private final IntBuffer offsets;
+    private final IntBuffer frequency, inDegree, outDegree, weightedInDegree, weightedOutDegree;
+    private final IntBuffer sources, destinations, weights;
+    private final IntBuffer hashes, slots;
+    private final int mask;
+    private final long totalFrequency;
+
+    /**
+     * Map a snapshot file
+     * @param file
+     * @throws IOException if file is not a snapshot or its sections do not fit in it
+     */
+    public MappedWordsGraph(File file) throws IOException {
+        this.file = file;
+        buffer = WordsGraphSnapshot.map(file);
+        int version = buffer.getInt();
+        numWords = buffer.getInt();
+        numEdges = buffer.getInt();
+        numWeightedEdges = buffer.getInt();
+        int indexCapacity = version == 1 ? WordsGraphSnapshot.indexCapacity(numWords) : buffer.getInt();
+        if (numWords < 0 || numEdges < 0 || Integer.bitCount(indexCapacity) != 1 || indexCapacity <= numWords) {
+            throw corrupted(null);
+        }
+
+        offsets = ints(buffer.position(), numWords + 1);
+        bytesStart = buffer.position() + (numWords + 1) * Integer.BYTES;
+        int numBytes = offsets.get(numWords);
+        if (numBytes < 0) throw corrupted(null);
+        long position = bytesStart + (long) numBytes;
+        if (version > 1) position = (position + Integer.BYTES - 1) & -Integer.BYTES;
+
+        IntBuffer[] nodes = new IntBuffer[5];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = ints(position, numWords);
+            position += (long) numWords * Integer.BYTES;
+        }
+        frequency = nodes[0];
+        inDegree = nodes[1];
+        outDegree = nodes[2];
+        weightedInDegree = nodes[3];
+        weightedOutDegree = nodes[4];
+
+        sources = ints(position, numEdges);
+        position += (long) numEdges * Integer.BYTES;
+        destinations = ints(position, numEdges);
+        position += (long) numEdges * Integer.BYTES;
+        weights = ints(position, numEdges);
+        position += (long) numEdges * Integer.BYTES;
+
+        mask = indexCapacity - 1;
+        if (version == 1) {
+            int[] wordHashes = new int[numWords];
+            int[] wordSlots = new int[indexCapacity];
+            try {
+                for (int id = 0; id < numWords; id++) {
+                    wordHashes[id] = getWord(id).hashCode();
+                    int i = WordsGraphSnapshot.indexSlot(wordHashes[id], mask);
+                    while (wordSlots[i] != 0) i = (i + 1) & mask;
+                    wordSlots[i] = id + 1;
+                }
+            } catch (RuntimeException e) {
+                // word offsets out of range
+                throw corrupted(e);
+            }
+            hashes = IntBuffer.wrap(wordHashes);
+            slots = IntBuffer.wrap(wordSlots);
+        } else {
+            hashes = ints(position, numWords);
+            position += (long) numWords * Integer.BYTES;
+            slots = ints(position, indexCapacity);
+            /* lookups stop at an empty slot and must only find valid ids */
+            int empty = 0;
+            for (int i = 0; i < indexCapacity; i++) {
+                int slot = slots.get(i);
+                if (slot < 0 || slot > numWords) throw corrupted(null);
+                if (slot == 0) empty++;
+            }
+            if (empty != indexCapacity - numWords) throw corrupted(null);
+        }
+
+        long total = 0;
+        for (int id = 0; id < numWords; id++) {
+            total += frequency.get(id);
+        }
+        totalFrequency = total;
+    }
+
+    /* view of length ints at a byte position of the buffer */
+    private IntBuffer ints(long position, int length) throws IOException {
+        if (length < 0 || position + (long) length * Integer.BYTES > buffer.limit()) {
+            throw corrupted(null);
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) position);
+        slice.limit((int) position + length * Integer.BYTES);
+        return slice.slice().asIntBuffer();
+    }
+
+    private IOException corrupted(Exception cause) {
+        return new IOException(file + ": corrupted snapshot", cause);
+    }
+
+    @Override
+    public int getWordId(String word) {
+        int hash = word.hashCode();
+        for (int i = WordsGraphSnapshot.indexSlot(hash, mask); slots.get(i) != 0; i = (i + 1) & mask) {
+            int id = slots.get(i) - 1;
+            if (hashes.get(id) == hash && wordEquals(id, word)) return id;
+        }
+        return -1;
+    }
+
+    /* compares the UTF-8 bytes of a word with a string without decoding them */
+    private boolean wordEquals(int id, String word) {
+        int position = bytesStart + offsets.get(id);
+        int end = bytesStart + offsets.get(id + 1);
+        for (int k = 0; k < word.length(); k++) {
+            char ch = word.charAt(k);
+            int c = ch;
+            if (Character.isHighSurrogate(ch) && k + 1 < word.length() && Character.isLowSurrogate(word.charAt(k + 1))) {
+                c = Character.toCodePoint(ch, word.charAt(++k));
+            } else if (Character.isSurrogate(ch)) {
+                c = '?';  // unpaired surrogates are written as '?'
+            }
+
+            if (c < 0x80) {
+                if (position + 1 > end || buffer.get(position++) != (byte) c) return false;
+            } else if (c < 0x800) {
+                if (position + 2 > end
+                        || buffer.get(position++) != (byte) (0xC0 | c >> 6)
+                        || buffer.get(position++) != (byte) (0x80 | c & 0x3F)) return false;
+            } else if (c < 0x10000) {
+                if (position + 3 > end
+                        || buffer.get(position++) != (byte) (0xE0 | c >> 12)
+                        || buffer.get(position++) != (byte) (0x80 | c >> 6 & 0x3F)
+                        || buffer.get(position++) != (byte) (0x80 | c & 0x3F)) return false;
+            } else {
+                if (position + 4 > end
+                        || buffer.get(position++) != (byte) (0xF0 | c >> 18)
+                        || buffer.get(position++) != (byte) (0x80 | c >> 12 & 0x3F)
+                        || buffer.get(position++) != (byte) (0x80 | c >> 6 & 0x3F)
+                        || buffer.get(position++) != (byte) (0x80 | c & 0x3F)) return false;
+            }
+        }
+        return position == end;
+    }
+
+    /**
+     * Get the word with the supplied id, decoded from the file on each call
+     * @param id
+     * @return
+     */
+    public String getWord(int id) {
+        if (id < 0 || id >= numWords) throw new IndexOutOfBoundsException("word id " + id);
+        int start = offsets.get(id);
+        byte[] bytes = new byte[offsets.get(id + 1) - start];
+        for (int k = 0; k < bytes.length; k++) {
+            bytes[k] = buffer.get(bytesStart + start + k);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getFrequency(int id) {
+        return frequency.get(id);
+    }
+
+    @Override
+    public int getInDegree(int id) {
+        return inDegree.get(id);
+    }
+
+    @Override
+    public int getOutDegree(int id) {
+        return outDegree.get(id);
+    }
+
+    @Override
+    public int getWeightedInDegree(int id) {
+        return weightedInDegree.get(id);
+    }
+
+    @Override
+    public int getWeightedOutDegree(int id) {
+        return weightedOutDegree.get(id);
+    }
+
+    @Override
+    public long getTotalFrequency() {
+        return totalFrequency;
+    }
+
+    /**
+     * The graph never changes
+     * @return
+     */
+    @Override
+    public int getModCount() {
+        return 0;
+    }
+
+    @Override
+    public boolean isModifiedSince(int id, int modCount) {
+        return false;
+    }
+
+    /**
+     * Get the frequency this edge has been added to the graph, edges are sorted in the
+     * file so it is a binary search
+     * If edge is not in the graph returns -1
+     * @param from
+     * @param to
+     * @return
+     */
+    public int getEdgeWeight(String from, String to) {
+        int fromId = getWordId(from);
+        int toId = getWordId(to);
+        if (fromId < 0 || toId < 0) return -1;
+
+        long key = ((long) fromId << 32) | toId;
+        int low = 0;
+        int high = numEdges - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = ((long) sources.get(mid) << 32) | destinations.get(mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return weights.get(mid);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Total unique node words in the graph
+     * @return
+     */
+    public int getNumWords() {
+        return numWords;
+    }
+
+    /**
+     * total unique edges in the graph
+     * @return
+     */
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Copy of the graph on the heap, with the same ids, that can be added to
+     * @return
+     */
+    public WordsGraph toWordsGraph() {
+        WordsGraph graph = new WordsGraph();
+        graph.dictionary = new WordDictionary(numWords);
+        for (int id = 0; id < numWords; id++) {
+            String word = getWord(id);
+            if (graph.dictionary.add(word) != id) {
+                throw new IllegalStateException(file + ": duplicated word " + word);
+            }
+        }
+
+        graph.frequency = toArray(frequency);
+        graph.inDegree = toArray(inDegree);
+        graph.outDegree = toArray(outDegree);
+        graph.weightedInDegree = toArray(weightedInDegree);
+        graph.weightedOutDegree = toArray(weightedOutDegree);
+        graph.lastModified = new int[numWords];
+        graph.totalFrequency = totalFrequency;
+
+        graph.weightedEdges = new LongIntHashMap(numEdges);
+        for (int i = 0; i < numEdges; i++) {
+            graph.weightedEdges.put(((long) sources.get(i) << 32) | destinations.get(i), weights.get(i));
+        }
+        graph.numEdges = numEdges;
+        graph.numWeightedEdges = numWeightedEdges;
+        return graph;
+    }
+
+    private static int[] toArray(IntBuffer ints) {
+        int[] values = new int[ints.limit()];
+        ints.duplicate().get(values);
+        return values;
+    }
+}
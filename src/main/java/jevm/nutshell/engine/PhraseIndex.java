@@ -0,0 +1,111 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.WordDictionary;
+import jevm.nutshell.parser.Tokenizer;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Distinct keyword candidates of a text with the times each one was added and the ids of
+ * its words in the words graph of the text, so multi-word keywords are scored once per
+ * distinct phrase instead of once per occurrence.  Word ids are looked up the first time
+ * a phrase is scored, once its words are in the graph
+ */
+class PhraseIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final WordDictionary phrases = new WordDictionary();
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[][] wordIds = new int[INITIAL_CAPACITY][];  // null until looked up
+
+    /**
+     * Add an occurrence of a phrase
+     * @param phrase
+     */
+    void add(String phrase) {
+        add(phrase, 1);
+    }
+
+    private void add(String phrase, int count) {
+        int id = phrases.add(phrase);
+        if (id == counts.length) {
+            counts = Arrays.copyOf(counts, id << 1);
+            wordIds = Arrays.copyOf(wordIds, id << 1);
+        }
+        counts[id] += count;
+    }
+
+    void addAll(Collection<String> candidates) {
+        for (String phrase : candidates) {
+            add(phrase);
+        }
+    }
+
+    /**
+     * Remove an occurrence of a phrase, phrases removed down to zero count keep their ids
+     * @param phrase
+     * @throws IllegalArgumentException if the phrase has zero count
+     */
+    void remove(String phrase) {
+        int id = phrases.getId(phrase);
+        if (id < 0 || counts[id] == 0) throw new IllegalArgumentException("Phrase not in index: " + phrase);
+        counts[id]--;
+    }
+
+    /**
+     * Number of distinct phrases, ids go from 0 to size() - 1
+     * @return
+     */
+    int size() {
+        return phrases.size();
+    }
+
+    String getPhrase(int id) {
+        return phrases.getWord(id);
+    }
+
+    int getCount(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Score of one occurrence of a phrase, the sum of the scores of its words same as
+     * TextAnalyzer.scoreString
+     * @param id
+     * @param graph graph of the text the phrases were added to
+     * @param scores word scores by id in graph
+     * @return
+     */
+    double score(int id, WordsGraph graph, double[] scores) {
+        int[] ids = wordIds[id];
+        if (ids == null) {
+            String[] words = Tokenizer.splitWhitespace(phrases.getWord(id).toLowerCase());
+            ids = new int[words.length];
+            for (int k = 0; k < words.length; k++) {
+                ids[k] = graph.getWordId(words[k]);
+            }
+            wordIds[id] = ids;
+        }
+
+        double score = 0.0;
+        for (int wordId : ids) {
+            score += wordId < 0 ? 0.0 : scores[wordId];
+        }
+        return score;
+    }
+
+    /**
+     * Copy without the phrases removed down to zero count and with word ids to look up
+     * again, for when the ids of the graph have changed
+     * @return
+     */
+    PhraseIndex compact() {
+        PhraseIndex index = new PhraseIndex();
+        for (int id = 0; id < phrases.size(); id++) {
+            if (counts[id] > 0) index.add(phrases.getWord(id), counts[id]);
+        }
+        return index;
+    }
+}
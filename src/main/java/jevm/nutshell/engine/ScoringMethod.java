@@ -0,0 +1,151 @@
+package jevm.nutshell.engine;
+
+/**
+ * Ways of scoring the words of a graph.  Scores are computed by word id so a whole
+ * graph can be scored into a double[] without boxing nor looking words up
+ */
+public enum ScoringMethod {
+
+    DEGREE {
+        @Override
+        public double score(WordStatistics graph, int id, boolean isVsCorpus) {
+            return (double) graph.getInDegree(id) + graph.getOutDegree(id);
+        }
+    },
+
+    WEIGHTED_DEGREE {
+        @Override
+        public double score(WordStatistics graph, int id, boolean isVsCorpus) {
+            return (double) graph.getWeightedInDegree(id) + graph.getWeightedOutDegree(id);
+        }
+    },
+
+    ENTROPY {
+        @Override
+        public double score(WordStatistics graph, int id, boolean isVsCorpus) {
+            double relFreq = (double) graph.getFrequency(id) / graph.getTotalFrequency();
+            double score = - relFreq * Math.log(relFreq);
+            if (!isVsCorpus) score *= graph.getFrequency(id);
+            return score;
+        }
+
+        @Override
+        public boolean usesRelativeFrequency() {
+            return true;
+        }
+
+        @Override
+        public boolean ignoresCorpusScore() {
+            return true;
+        }
+    },
+
+    RELATIVE_DEGREE {
+        @Override
+        public double score(WordStatistics graph, int id, boolean isVsCorpus) {
+            return (double) (graph.getWeightedInDegree(id) + graph.getWeightedOutDegree(id)) / graph.getFrequency(id);
+        }
+    },
+
+    FREQUENCY {
+        @Override
+        public double score(WordStatistics graph, int id, boolean isVsCorpus) {
+            return (double) graph.getFrequency(id) / graph.getTotalFrequency();
+        }
+
+        @Override
+        public boolean usesRelativeFrequency() {
+            return true;
+        }
+    },
+
+    /* BM25 term frequency weighted by inverse document frequency */
+    TF_IDF {
+        @Override
+        public double score(WordStatistics graph, int id, boolean isVsCorpus) {
+            /* without documents the text is taken as one of average length */
+            return termWeight(graph.getFrequency(id), 1.0);
+        }
+
+        @Override
+        public boolean usesDocumentFrequency() {
+            return true;
+        }
+    };
+
+    /* BM25 parameters, saturation of term frequency and weight of document length */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static double termWeight(int frequency, double lengthRatio) {
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+    }
+
+    /**
+     * TF_IDF score of a text word against the documents of a corpus, the score of the
+     * methods that usesDocumentFrequency
+     * @param text
+     * @param id id of the word in text
+     * @param documents document frequencies of the corpus
+     * @return
+     */
+    static double scoreVsDocuments(WordsGraph text, int id, DocumentFrequencyTable documents) {
+        int numDocuments = documents.getNumDocuments();
+        double lengthRatio = 1.0;
+        if (documents.getTotalFrequency() > 0) {
+            lengthRatio = text.getTotalFrequency() * (double) numDocuments / documents.getTotalFrequency();
+        }
+        int documentFrequency = documents.getDocumentFrequency(text.getWord(id));
+        double idf = Math.log(1.0 + (numDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        return termWeight(text.getFrequency(id), lengthRatio) * idf;
+    }
+
+    /**
+     * Score of a single word
+     * @param graph
+     * @param id id of the word in graph
+     * @param isVsCorpus true if the score of a text word is to be combined with its corpus score
+     * @return
+     */
+    public abstract double score(WordStatistics graph, int id, boolean isVsCorpus);
+
+    /**
+     * Scores depend on the total frequency of the graph, so adding any word changes
+     * the score of all of them
+     * @return
+     */
+    public boolean usesRelativeFrequency() {
+        return false;
+    }
+
+    /**
+     * Score of a text word vs corpus is its text score alone, the corpus score only tells
+     * whether the word is known to the corpus, instead of the text score divided by it
+     * @return
+     */
+    public boolean ignoresCorpusScore() {
+        return false;
+    }
+
+    /**
+     * Corpus is kept as a DocumentFrequencyTable and text words are scored against it
+     * with scoreVsDocuments instead of against the scores of a corpus graph
+     * @return
+     */
+    public boolean usesDocumentFrequency() {
+        return false;
+    }
+
+    /**
+     * Names of all methods in declaration order
+     * @return
+     */
+    public static String[] names() {
+        ScoringMethod[] methods = values();
+        String[] names = new String[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            names[i] = methods[i].name();
+        }
+        return names;
+    }
+}
@@ -2,27 +2,53 @@ package jevm.nutshell.engine;
 
 
 import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.data.TopKSelector;
+import jevm.nutshell.metrics.Metrics;
+import jevm.nutshell.parser.StopWordsSplitter;
+import jevm.nutshell.parser.Tokenizer;
+import jevm.nutshell.parser.WordParser;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Text analyzer using different scoring methods
  */
 public class TextAnalyzer {
 
-    public static final String[] scoringOptions = {"DEGREE", "WEIGHTED_DEGREE", "ENTROPY", "RELATIVE_DEGREE", "FREQUENCY"};
+    public static final String[] scoringOptions = ScoringMethod.names();
 
-    public static final String DEFAULT_WORD_DELIMITER = "\\s";
+    public static final String DEFAULT_WORD_DELIMITER = Tokenizer.WHITESPACE;
     private static final int DEFAULT_MIN_LENGTH = 3;
+    private static final int MIN_COMPACT_WORDS = 1024;
     public static double UNKNOWN_SCORE_FACTOR = 1.3;
 
-    private List<String> textLines = new LinkedList<>();
-    private List<String> corpusLines = new LinkedList<>();
-    private List<String> candidates = new LinkedList<>();
+    private LineIndex textLines = new LineIndex();
+    private PhraseIndex candidates = new PhraseIndex();
+    /* text lines are only needed for abstracts and candidates for multi-word keywords */
+    private boolean retainLines = true;
+    private boolean retainCandidates = true;
+    /* corpus lines and candidates are only kept for a corpus view */
+    private boolean retainCorpusText = false;
+    private LineIndex corpusLines = new LineIndex();
+    private PhraseIndex corpusCandidates = new PhraseIndex();
+    private boolean isReadOnly = false;  // view over the corpus of another analyzer
     private List<String> stopWords;
     private WordsGraph textGraph, corpusGraph;
-    private Map<String, Double> textWordScores, corpusWordScores;
-    private String regexSplit, scoringMethod;
+    private ApproximateWordsGraph approximateCorpus;  // used instead of corpusGraph if set
+    private MappedWordsGraph mappedCorpus;  // used instead of corpusGraph until added to
+    private DocumentFrequencyTable documentFrequencies;  // whole corpus for methods using it
+    private boolean isCorpusShared = false;  // corpus graph belongs to another analyzer
+    /* by text word id: score, corpus score (NaN until known) and not being in corpus */
+    private double[] textWordScores = new double[0];
+    private double[] corpusWordScores = new double[0];
+    private boolean[] isUnknown = new boolean[0];
+    /* graph modification counts and total frequencies at last scoring, -1 to score everything */
+    private int textModCount = -1;
+    private int corpusModCount = -1;
+    private long textTotalFrequency, corpusTotalFrequency;
+    private StopWordsSplitter stopWordsSplitter;
+    private ScoringMethod scoringMethod;
 
     /**
      * Create a new analyzer, if corpus is added analysis is differencial of text vs corpus
@@ -31,24 +57,311 @@ public class TextAnalyzer {
      * @param scoring  scoring method, available options in TextAnalyzer.scoringOptions
      */
     public TextAnalyzer(List<String> stopWords, String scoring ) {
+        this(stopWords, ScoringMethod.valueOf(scoring));
+    }
+
+    /**
+     * @param stopWords list of stopwords, ignored for defining context
+     * @param scoring scoring method
+     */
+    public TextAnalyzer(List<String> stopWords, ScoringMethod scoring) {
         this.stopWords = stopWords;
         textGraph = new WordsGraph();
         corpusGraph = null; // null until one is add to flag analysis without corpus
-        this.scoringMethod = scoring ;
-        buildRegexSplit();
+        this.scoringMethod = scoring;
+        stopWordsSplitter = new StopWordsSplitter(stopWords);
+    }
+
+    /**
+     * Create an analyzer without text that shares stop words, scoring method and corpus
+     * with another one, e.g. to analyze each request of a service against the same corpus.
+     * The corpus is copied before this analyzer adds to it so the other one never changes,
+     * several analyzers may share it from different threads as long as nothing adds to it
+     * in the original analyzer. Lines and candidates of the corpus are not shared
+     * @param other
+     */
+    public TextAnalyzer(TextAnalyzer other) {
+        this.stopWords = other.stopWords;
+        this.stopWordsSplitter = other.stopWordsSplitter;
+        this.scoringMethod = other.scoringMethod;
+        this.retainLines = other.retainLines;
+        this.retainCandidates = other.retainCandidates;
+        textGraph = new WordsGraph();
+        corpusGraph = other.corpusGraph;
+        approximateCorpus = other.approximateCorpus;
+        mappedCorpus = other.mappedCorpus;
+        documentFrequencies = other.documentFrequencies;
+        isCorpusShared = corpusGraph != null || approximateCorpus != null || documentFrequencies != null;
+    }
+
+    /**
+     * Corpus graph to add to, created if there is no corpus yet and copied if it is shared
+     * or mapped
+     */
+    private WordsGraph corpusForUpdate() {
+        checkWritable();
+        if (mappedCorpus != null) {
+            corpusGraph = mappedCorpus.toWordsGraph();
+            mappedCorpus = null;
+            isCorpusShared = false;
+            corpusModCount = -1;
+        } else if (corpusGraph == null) {
+            corpusGraph = new WordsGraph();
+        } else if (isCorpusShared) {
+            WordsGraph copy = new WordsGraph();
+            copy.merge(corpusGraph);
+            corpusGraph = copy;
+            isCorpusShared = false;
+            corpusModCount = -1;  // modification counts of the copy start again
+        }
+        return corpusGraph;
+    }
+
+    /**
+     * Approximate corpus graph to add to, copied if it is shared
+     */
+    private ApproximateWordsGraph approximateForUpdate() {
+        checkWritable();
+        if (isCorpusShared) {
+            approximateCorpus = new ApproximateWordsGraph(approximateCorpus);
+            isCorpusShared = false;
+            corpusModCount = -1;
+        }
+        return approximateCorpus;
+    }
+
+    /**
+     * Document frequencies to add to, created if there is no corpus yet and copied if
+     * it is shared
+     */
+    private DocumentFrequencyTable documentsForUpdate() {
+        checkWritable();
+        if (documentFrequencies == null) {
+            documentFrequencies = new DocumentFrequencyTable();
+        } else if (isCorpusShared) {
+            documentFrequencies = new DocumentFrequencyTable(documentFrequencies);
+            isCorpusShared = false;
+            corpusModCount = -1;
+        }
+        return documentFrequencies;
+    }
+
+    /* graphs have no documents to count */
+    private void checkGraphCorpus() {
+        if (scoringMethod.usesDocumentFrequency()) {
+            throw new IllegalStateException("Corpus of " + scoringMethod + " is kept as document frequencies, not a graph");
+        }
+    }
+
+    /**
+     * Keep the corpus in an approximate graph of fixed memory instead of an exact one,
+     * corpus added afterwards is added to it.  Must be set before adding any corpus, the
+     * corpus view and corpus graph are not available with an approximate corpus
+     * @param corpus
+     */
+    public void setApproximateCorpus(ApproximateWordsGraph corpus) {
+        checkWritable();
+        checkGraphCorpus();
+        if (corpusGraph != null || approximateCorpus != null || mappedCorpus != null) {
+            throw new IllegalStateException("Corpus already added");
+        }
+        approximateCorpus = corpus;
+        corpusModCount = -1;
+    }
+
+    /**
+     * Counters of the corpus used for scoring, null if no corpus has been added
+     */
+    private WordStatistics getCorpusStatistics() {
+        if (approximateCorpus != null) return approximateCorpus;
+        return mappedCorpus != null ? mappedCorpus : corpusGraph;
+    }
+
+    /**
+     * Keep raw text lines, needed by getAbstract and getTextAbstract. Default is true
+     * @param retainLines
+     */
+    public void setRetainLines(boolean retainLines) {
+        this.retainLines = retainLines;
+    }
+
+    /**
+     * Keep keyword candidates of the text, needed by getKeywords. Default is true
+     * @param retainCandidates
+     */
+    public void setRetainCandidates(boolean retainCandidates) {
+        this.retainCandidates = retainCandidates;
+    }
+
+    /**
+     * Keep lines and candidates of the corpus as they are kept for text, needed by
+     * getCorpusView for anything but single-word keywords. Default is false
+     * @param retainCorpusText
+     */
+    public void setRetainCorpusText(boolean retainCorpusText) {
+        this.retainCorpusText = retainCorpusText;
+    }
+
+    /* adds candidate strings to the corpus graph in use */
+    private Consumer<String> corpusAdder() {
+        if (approximateCorpus != null) {
+            ApproximateWordsGraph corpus = approximateForUpdate();
+            return corpus::addString;
+        }
+        WordsGraph corpus = corpusForUpdate();
+        return corpus::addString;
+    }
+
+    private void checkWritable() {
+        if (isReadOnly) throw new UnsupportedOperationException("Corpus view can not be modified");
     }
 
     /**
      * Add a new list of raw strings to use as corpus, may be called several times in
-     * which corpus keeps growing
+     * which corpus keeps growing.  With scoring methods using document frequency the
+     * lines are counted as one document
      * @param lines
      */
     public void addCorpus(List<String> lines) {
-        if (corpusGraph == null) {
-            corpusGraph = new WordsGraph();
+        if (scoringMethod.usesDocumentFrequency()) {
+            Set<String> words = new HashSet<>();
+            long length = 0;
+            for (String line : lines) {
+                length += addDocumentWords(line, words);
+            }
+            documentsForUpdate().addDocument(words, length);
+            return;
+        }
+        Consumer<String> corpus = corpusAdder();
+        if (retainCorpusText && retainLines) corpusLines.addAll(lines);
+        for (String line : lines) {
+            forEachCandidate(line, candidate -> {
+                if (retainCorpusText && retainCandidates) corpusCandidates.add(candidate);
+                corpus.accept(candidate);
+            });
+        }
+    }
+
+    /**
+     * Add every line of a parser to the corpus as it is parsed, lines are only kept
+     * if corpus text is retained.  With scoring methods using document frequency the
+     * lines are counted as one document
+     * @param parser
+     */
+    public void addCorpus(WordParser parser) {
+        if (scoringMethod.usesDocumentFrequency()) {
+            addCorpus(createDocumentShard(parser));
+            return;
+        }
+        Consumer<String> corpus = corpusAdder();
+        parser.forEachLine(line -> {
+            if (retainCorpusText && retainLines) corpusLines.add(line);
+            forEachCandidate(line, candidate -> {
+                if (retainCorpusText && retainCandidates) corpusCandidates.add(candidate);
+                corpus.accept(candidate);
+            });
+        });
+    }
+
+    /**
+     * Add a shard previously built with createShard to the corpus, may be called
+     * several times in which corpus keeps growing.  With scoring methods using document
+     * frequency only the distinct words of the shard are counted, as one document, and
+     * no corpus graph is built
+     * @param shard
+     */
+    public void addCorpus(TextShard shard) {
+        if (scoringMethod.usesDocumentFrequency()) {
+            documentsForUpdate().addDocument(shard.getWords(), shard.getLength());
+            return;
+        }
+        checkHasGraph(shard);
+        if (approximateCorpus != null) {
+            approximateForUpdate().merge(shard.graph);
+        } else {
+            corpusForUpdate().merge(shard.graph);
+        }
+        if (retainCorpusText && retainLines) corpusLines.addAll(shard.lines);
+        if (retainCorpusText && retainCandidates) corpusCandidates.addAll(shard.candidates);
+    }
+
+    /**
+     * Add a words graph built elsewhere, e.g. loaded with WordsGraphSnapshot, to the corpus.
+     * If there is no corpus yet the graph is used as it is and must not be modified afterwards
+     * @param graph
+     */
+    public void addCorpus(WordsGraph graph) {
+        checkWritable();
+        checkGraphCorpus();
+        if (approximateCorpus != null) {
+            approximateForUpdate().merge(graph);
+        } else if (corpusGraph == null && mappedCorpus == null) {
+            corpusGraph = graph;
+        } else {
+            corpusForUpdate().merge(graph);
+        }
+    }
+
+    /**
+     * Add a snapshot mapped off the heap to the corpus.  If there is no corpus yet it is
+     * used in place, and only copied to the heap if corpus is added to it afterwards
+     * @param graph
+     */
+    public void addCorpus(MappedWordsGraph graph) {
+        checkWritable();
+        checkGraphCorpus();
+        if (approximateCorpus != null) {
+            approximateForUpdate().merge(graph.toWordsGraph());
+        } else if (corpusGraph == null && mappedCorpus == null) {
+            mappedCorpus = graph;
+            corpusModCount = -1;
+        } else {
+            corpusForUpdate().merge(graph.toWordsGraph());
+        }
+    }
+
+    /**
+     * Words graph of the corpus, null if no corpus has been added or it is approximate
+     * or mapped
+     * @return
+     */
+    public WordsGraph getCorpusGraph() {
+        return corpusGraph;
+    }
+
+    /**
+     * Document frequencies of the corpus, null unless the scoring method uses them and
+     * corpus has been added
+     * @return
+     */
+    public DocumentFrequencyTable getDocumentFrequencies() {
+        return documentFrequencies;
+    }
+
+    /**
+     * Read-only analyzer whose text is the corpus of this one, analyzed on its own as
+     * if it had been added as text to a new analyzer.  The view shares the corpus graph
+     * and retained corpus lines and candidates instead of building them again, so it is
+     * meant to be taken once the corpus is complete
+     * @return view, or null if no corpus has been added
+     */
+    public TextAnalyzer getCorpusView() {
+        if (mappedCorpus != null) {
+            /* the view scores the corpus as text, which needs it on the heap */
+            corpusGraph = mappedCorpus.toWordsGraph();
+            mappedCorpus = null;
+            isCorpusShared = false;
+            corpusModCount = -1;
         }
-        corpusLines.addAll(lines);
-        corpusGraph.addAll(getKeywordCandidates(lines));
+        if (corpusGraph == null) return null;
+        TextAnalyzer view = new TextAnalyzer(this);
+        view.corpusGraph = null;
+        view.isCorpusShared = false;
+        view.textGraph = corpusGraph;
+        view.textLines = corpusLines;
+        view.candidates = corpusCandidates;
+        view.isReadOnly = true;
+        return view;
     }
 
     /**
@@ -57,143 +370,309 @@ public class TextAnalyzer {
      * @param lines
      */
     public void addText(List<String> lines) {
-        textLines.addAll(lines);
-        candidates = getKeywordCandidates(lines);
-        textGraph.addAll(candidates);
+        checkWritable();
+        if (retainLines) textLines.addAll(lines);
+        List<String> lineCandidates = getKeywordCandidates(lines);
+        textGraph.addAll(lineCandidates);
+        if (retainCandidates) candidates.addAll(lineCandidates);
+    }
+
+    /**
+     * Add every line of a parser to the text under analysis as it is parsed, only
+     * lines and candidates set to be retained are kept
+     * @param parser
+     */
+    public void addText(WordParser parser) {
+        checkWritable();
+        parser.forEachLine(line -> {
+            if (retainLines) textLines.add(line);
+            forEachCandidate(line, candidate -> {
+                if (retainCandidates) candidates.add(candidate);
+                textGraph.addString(candidate);
+            });
+        });
+    }
+
+    /**
+     * Add a shard previously built with createShard to the text under analysis, may be
+     * called several times in which text keeps growing
+     * @param shard
+     */
+    public void addText(TextShard shard) {
+        checkWritable();
+        checkHasGraph(shard);
+        if (retainLines) textLines.addAll(shard.lines);
+        if (retainCandidates) candidates.addAll(shard.candidates);
+        textGraph.merge(shard.graph);
+    }
+
+    /**
+     * Add a words graph built elsewhere to the text under analysis, only single word
+     * keywords are available for text added this way as it has no lines nor candidates
+     * @param graph
+     */
+    public void addText(WordsGraph graph) {
+        checkWritable();
+        textGraph.merge(graph);
+    }
+
+    /**
+     * Remove lines previously added as text, the reverse of addText, e.g. to keep the text
+     * to a window of the latest lines as TextWindow does.  Scores are updated on the next
+     * query only for the words removed, same as for words added
+     * @param lines
+     * @throws IllegalArgumentException if a line was not added
+     */
+    public void removeText(List<String> lines) {
+        checkWritable();
+        for (String line : lines) {
+            if (retainLines) textLines.remove(line);
+            forEachCandidate(line, candidate -> {
+                if (retainCandidates) candidates.remove(candidate);
+                textGraph.removeString(candidate);
+            });
+        }
+        int numRemoved = textGraph.getNumRemovedWords();
+        if (numRemoved > MIN_COMPACT_WORDS && numRemoved > textGraph.getIdBound() / 2) {
+            /* drop words no longer in the text once they are most of the ids */
+            textGraph = textGraph.compact();
+            candidates = candidates.compact();
+            textModCount = -1;
+            Arrays.fill(corpusWordScores, Double.NaN);  // ids are given again
+            Arrays.fill(isUnknown, false);
+        }
+    }
+
+    /**
+     * Extract candidates and build the words graph of a list of raw strings without
+     * modifying this analyzer, safe to call from several threads at once
+     * @param lines
+     * @return shard to use in addText or addCorpus
+     */
+    public TextShard createShard(List<String> lines) {
+        List<String> shardCandidates = getKeywordCandidates(lines);
+        WordsGraph graph = new WordsGraph();
+        graph.addAll(shardCandidates);
+        return new TextShard(lines, shardCandidates, graph);
+    }
+
+    /**
+     * Same as createShard(List) but reading lines from a parser as they are parsed
+     * @param parser
+     * @param retainText if true the shard keeps the lines and candidates this analyzer is set
+     *                   to retain, otherwise it only has what addCorpus needs: the graph, or
+     *                   the distinct words with scoring methods using document frequency
+     * @return shard to use in addText or addCorpus, only addCorpus if retainText is false
+     */
+    public TextShard createShard(WordParser parser, boolean retainText) {
+        if (!retainText && scoringMethod.usesDocumentFrequency()) return createDocumentShard(parser);
+        List<String> shardLines = new ArrayList<>();
+        List<String> shardCandidates = new ArrayList<>();
+        WordsGraph graph = new WordsGraph();
+        parser.forEachLine(line -> {
+            if (retainText && retainLines) shardLines.add(line);
+            forEachCandidate(line, candidate -> {
+                if (retainText && retainCandidates) shardCandidates.add(candidate);
+                graph.addString(candidate);
+            });
+        });
+        return new TextShard(shardLines, shardCandidates, graph);
+    }
+
+    /* distinct words of a corpus document, without building its graph */
+    private TextShard createDocumentShard(WordParser parser) {
+        Set<String> words = new HashSet<>();
+        long[] length = {0};
+        parser.forEachLine(line -> length[0] += addDocumentWords(line, words));
+        return new TextShard(Collections.emptyList(), Collections.emptyList(), words, length[0]);
+    }
+
+    /**
+     * Add the words of the candidates of a line to a set, split as a graph splits them
+     * @return number of words of the candidates
+     */
+    private int addDocumentWords(String line, Set<String> words) {
+        int[] length = {0};
+        forEachCandidate(line, candidate -> {
+            for (String word : Tokenizer.split(candidate, WordsGraph.DEFAULT_WORD_DELIMITER)) {
+                if (word.isEmpty()) continue;
+                words.add(word);
+                length[0]++;
+            }
+        });
+        return length[0];
+    }
+
+    private static void checkHasGraph(TextShard shard) {
+        if (shard.graph == null) throw new IllegalArgumentException("Shard only has the words of a corpus document");
     }
 
     /**
      * Delete text under analysis maintaining corpus
      */
     public void resetText() {
-        candidates = new LinkedList<>();
+        checkWritable();
+        candidates = new PhraseIndex();
         textGraph = new WordsGraph();
+        textModCount = -1;
+        Arrays.fill(corpusWordScores, Double.NaN);  // ids are given again
+        Arrays.fill(isUnknown, false);
     }
 
     /**
      * Score text words
      */
     public void analize() {
+        long start = Metrics.start();
         buidTextWordScores();
+        Metrics.stop(Metrics.Stage.SCORING, start);
     }
 
     /**
-     * Create a sting of regex with all the stop words to use on a split method
-     * TODO: improve with a full developed parser, if list is too large may fail and/or be inefficient
+     * Score words changed since last call, scores are kept between calls so repeated
+     * queries over the same text and corpus do not score again
      */
-    private void buildRegexSplit() {
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (String stopWord : stopWords) {
-            if (first) {
-                first = false;
-                sb.append("\\b(");
-            } else {
-                sb.append("|");
-            }
-            sb.append(stopWord);
-        }
-        sb.append(")+\\b");
-        regexSplit = sb.toString();
-    }
-
-    private void buidCorpusWordScores() {
-        corpusWordScores = calculateWordScores(corpusGraph);
-    }
-
     private void buidTextWordScores() {
-        if (corpusGraph == null) {
+        if (documentFrequencies != null) {
+            buildScoresVsDocuments();
+            return;
+        }
+        WordStatistics corpus = getCorpusStatistics();
+        boolean textChanged = textGraph.getModCount() != textModCount;
+        boolean corpusChanged = corpus != null && corpus.getModCount() != corpusModCount;
+        if (!textChanged && !corpusChanged) return;
+
+        /* relative frequency of every word changes with the total frequency */
+        boolean rescoreText = textModCount < 0 ||
+                scoringMethod.usesRelativeFrequency() && textGraph.getTotalFrequency() != textTotalFrequency;
+        int numWords = textGraph.getIdBound();
+        ensureScoresCapacity(numWords);
+
+        if (corpus == null) {
             /* if corpus is not existent score as single text, otherwise is a relative scoring */
-            textWordScores = calculateWordScores(textGraph);
+            for (int id = 0; id < numWords; id++) {
+                if (rescoreText || textGraph.isModifiedSince(id, textModCount)) {
+                    textWordScores[id] = scoreTextWord(id, false);
+                }
+            }
         } else {
-            buidCorpusWordScores();
-            textWordScores = new HashMap<>();
+            boolean rescoreCorpus = corpusModCount < 0 ||
+                    scoringMethod.usesRelativeFrequency() && corpus.getTotalFrequency() != corpusTotalFrequency;
+            if (rescoreCorpus) {
+                Arrays.fill(corpusWordScores, Double.NaN);
+            }
+
             /* relative scoring vs corpus */
-            List<String> unknownWords = new LinkedList<>();
-            Map<String, Double> relFreqs = textGraph.getWordRelativeFreqs();
-            for(Map.Entry<String, WordsGraph.WordData> e : textGraph.getAllEntries()) {
-                String word = e.getKey();
-                WordsGraph.WordData data = e.getValue();
-                if (corpusWordScores.containsKey(word) && corpusWordScores.get(word) != 0.0) {
-                    double thisWordScore = calcScore(scoringMethod, data, relFreqs.get(word), true);
-                    if (!scoringMethod.equals("ENTROPY")) {
-                        double corpusScore = corpusWordScores.get(word);
-                        if (corpusScore > Double.MIN_VALUE) {
-                            textWordScores.put(word, thisWordScore / corpusScore);
-                        }
-
-                    } else {
-                        /* entropy is additive */
-                        double currentEntropy = textWordScores.getOrDefault(word, 0.0);
-                        currentEntropy += thisWordScore;
-                        textWordScores.put(word, currentEntropy);
+            for (int id = 0; id < numWords; id++) {
+                boolean isModified = rescoreText || textGraph.isModifiedSince(id, textModCount);
+                double corpusScore = corpusWordScores[id];
+                boolean isScored = !Double.isNaN(corpusScore);
+                if (!isScored || corpusChanged) {
+                    int corpusId = corpus.getWordId(textGraph.getWord(id));
+                    if (!isScored || corpusId >= 0 && corpus.isModifiedSince(corpusId, corpusModCount)) {
+                        corpusScore = corpusId < 0 ? 0.0 : scoringMethod.score(corpus, corpusId, false);
+                        corpusWordScores[id] = corpusScore;
+                        isModified = true;
                     }
-                } else {
-                    unknownWords.add(word);
+                }
+                if (isModified) {
+                    scoreVsCorpus(id, corpusScore);
                 }
             }
 
             /* normalize unknown words */
-            normalizeUnknowns(unknownWords, UNKNOWN_SCORE_FACTOR);
+            normalizeUnknowns(UNKNOWN_SCORE_FACTOR);
+            corpusModCount = corpus.getModCount();
+            corpusTotalFrequency = corpus.getTotalFrequency();
         }
+
+        textModCount = textGraph.getModCount();
+        textTotalFrequency = textGraph.getTotalFrequency();
     }
 
     /**
-     * give a normalized score to all unknown words in the list and add to
-     * textWordScores
-     * @param unknownWords
+     * Score every text word against document frequencies when text or corpus changed,
+     * each score depends on the length of the whole text
      */
-    private void normalizeUnknowns(List<String> unknownWords, double factor) {
-        double min = Double.POSITIVE_INFINITY;
-        double max = Double.NEGATIVE_INFINITY;
-        for(Double score : textWordScores.values()) {
-            if (score > max) max = score;
-            if (score < min) min = score;
-        }
-        double scoreUnkown = min + (max - min) * factor;
-        for (String w : unknownWords) {
-            textWordScores.put(w, scoreUnkown * textGraph.getWordFreq(w));
+    private void buildScoresVsDocuments() {
+        boolean textChanged = textGraph.getModCount() != textModCount;
+        boolean corpusChanged = documentFrequencies.getModCount() != corpusModCount;
+        if (!textChanged && !corpusChanged) return;
+
+        int numWords = textGraph.getIdBound();
+        ensureScoresCapacity(numWords);
+        for (int id = 0; id < numWords; id++) {
+            textWordScores[id] = ScoringMethod.scoreVsDocuments(textGraph, id, documentFrequencies);
         }
-    }
 
-    private Map<String, Double> calculateWordScores(WordsGraph graph) {
-        Map<String, Double> output = new HashMap<>();
-        Map<String, Double> relFreqs = graph.getWordRelativeFreqs();
-        for(Map.Entry<String, WordsGraph.WordData> e : graph.getAllEntries()) {
-            String word = e.getKey();
-            WordsGraph.WordData data = e.getValue();
-            output.put(word, calcScore(scoringMethod, data, relFreqs.get(word), false));
-        }
-        return output;
+        textModCount = textGraph.getModCount();
+        corpusModCount = documentFrequencies.getModCount();
     }
 
-    private double calcScore(String strategy, WordsGraph.WordData data, double relFreq, boolean isCorpus) {
-        double score = 0.0;
-        switch ( strategy ) {
-
-            case "RELATIVE_DEGREE" :
-                score = (double) (data.weightedInDegree + data.weightedOutDegree) / data.frequency;
-                break;
+    private void ensureScoresCapacity(int numWords) {
+        int length = textWordScores.length;
+        if (length >= numWords) return;
+        int capacity = Math.max(numWords, length << 1);
+        textWordScores = Arrays.copyOf(textWordScores, capacity);
+        corpusWordScores = Arrays.copyOf(corpusWordScores, capacity);
+        Arrays.fill(corpusWordScores, length, capacity, Double.NaN);
+        isUnknown = Arrays.copyOf(isUnknown, capacity);
+    }
 
-            case "WEIGHTED_DEGREE" :
-                score = (double) data.weightedInDegree + data.weightedOutDegree;
-                break;
+    /**
+     * Scores of text words by id
+     */
+    private double[] getScores() {
+        long start = Metrics.start();
+        buidTextWordScores();
+        Metrics.stop(Metrics.Stage.SCORING, start);
+        return textWordScores;
+    }
 
-            case "DEGREE" :
-                score = (double) data.inDegree + data.outDegree;
-                break;
+    /**
+     * Score of a text word, 0 for words removed from the text which keep their id with
+     * zero frequency and would otherwise score 0/0
+     */
+    private double scoreTextWord(int id, boolean isVsCorpus) {
+        return textGraph.getFrequency(id) == 0 ? 0.0 : scoringMethod.score(textGraph, id, isVsCorpus);
+    }
 
-            case "FREQUENCY" :
-                score = relFreq;
-                break;
+    private void scoreVsCorpus(int id, double corpusScore) {
+        if (textGraph.getFrequency(id) == 0) {
+            isUnknown[id] = false;
+            textWordScores[id] = 0.0;
+        } else if (corpusScore != 0.0) {
+            isUnknown[id] = false;
+            double thisWordScore = scoreTextWord(id, true);
+            if (scoringMethod.ignoresCorpusScore()) {
+                textWordScores[id] = thisWordScore;
+            } else {
+                textWordScores[id] = corpusScore > Double.MIN_VALUE ? thisWordScore / corpusScore : 0.0;
+            }
+        } else {
+            isUnknown[id] = true;
+        }
+    }
 
-            case "ENTROPY" :
-                score = relFreq;
-                score = - score * Math.log(score);
-                if (!isCorpus) score *= data.frequency;
-                break;
+    /**
+     * give a normalized score to all unknown words relative to the scores of
+     * known words
+     * @param factor
+     */
+    private void normalizeUnknowns(double factor) {
+        int numWords = textGraph.getIdBound();
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int id = 0; id < numWords; id++) {
+            if (isUnknown[id] || textGraph.getFrequency(id) == 0) continue;
+            double score = textWordScores[id];
+            if (score > max) max = score;
+            if (score < min) min = score;
+        }
+        double scoreUnkown = min + (max - min) * factor;
+        for (int id = 0; id < numWords; id++) {
+            if (isUnknown[id]) textWordScores[id] = scoreUnkown * textGraph.getFrequency(id);
         }
-        return score;
     }
 
     /**
@@ -204,29 +683,19 @@ public class TextAnalyzer {
      */
     public List<ScoredWord> getKeywords(int n) {
 
-        buidTextWordScores();
-
-        /* additive scoring to account candidate frequency */
-        Map <String, Double> scoredCandidates = new HashMap<>();
-        for(String candidate : candidates) {
-            double score = scoredCandidates.getOrDefault(candidate, 0.0) + scoreString(candidate);
-            scoredCandidates.put(candidate, score);
-        }
-
-        /* use a head to sort from max to min candidate */
-        PriorityQueue<ScoredWord> sortedCandidates = new PriorityQueue<>();
-        for (String candidate : scoredCandidates.keySet()) {
-            sortedCandidates.add(new ScoredWord(candidate, scoredCandidates.get(candidate)));
-        }
+        double[] scores = getScores();
+        long start = Metrics.start();
 
-        /* only output top n candidates */
-        List<ScoredWord> output = new ArrayList<>(n);
-        for(int i = 0; i < n; i++) {
-            if (!sortedCandidates.isEmpty()) {
-                output.add(sortedCandidates.remove());
-            }
+        /* additive scoring to account candidate frequency, only keep top n candidates */
+        TopKSelector sortedCandidates = new TopKSelector(n);
+        for (int id = 0; id < candidates.size(); id++) {
+            int count = candidates.getCount(id);
+            if (count == 0) continue;  // removed from text
+            sortedCandidates.offer(candidates.getPhrase(id), count * candidates.score(id, textGraph, scores));
         }
 
+        List<ScoredWord> output = sortedCandidates.getSorted();
+        Metrics.stop(Metrics.Stage.SELECTION, start);
         return output;
     }
 
@@ -237,19 +706,16 @@ public class TextAnalyzer {
      */
     public List<ScoredWord> getKeyWordsSingle(int n) {
 
-        Queue<ScoredWord> scoredCandidates = new PriorityQueue<>();
-        buidTextWordScores();
-        for (Map.Entry<String, WordsGraph.WordData> e : textGraph.getAllEntries()) {
-            String word = e.getKey();
-            scoredCandidates.add(new ScoredWord(word, textWordScores.get(word)));
-        }
-
-        List<ScoredWord> output = new ArrayList<>();
-        for(int i = 0; i < n; i++) {
-            if (scoredCandidates.isEmpty()) break;
-            output.add(scoredCandidates.remove());
+        TopKSelector scoredCandidates = new TopKSelector(n);
+        double[] scores = getScores();
+        long start = Metrics.start();
+        for (int id = 0; id < textGraph.getIdBound(); id++) {
+            if (textGraph.getFrequency(id) == 0) continue;  // removed from text
+            scoredCandidates.offer(textGraph.getWord(id), scores[id]);
         }
 
+        List<ScoredWord> output = scoredCandidates.getSorted();
+        Metrics.stop(Metrics.Stage.SELECTION, start);
         return output;
     }
 
@@ -259,18 +725,52 @@ public class TextAnalyzer {
      * @return
      */
     public double scoreString(String s) {
-        if (textWordScores == null) {
-            buidTextWordScores();
+        return scoreString(getScores(), s);
+    }
+
+    private double scoreString(double[] scores, String s) {
+        if (!isLocaleCharFoldable()) return scoreSplitString(scores, s);
+
+        /* words are looked up in place, same as lower casing s and splitting on \s */
+        double score = 0.0;
+        int from = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Tokenizer.isWhitespace(c)) {
+                if (i > from) score += scoreSpan(scores, s, from, i);
+                from = i + 1;
+            } else if (c == '\u0130' || c == '\u03A3' || Character.isSurrogate(c)) {
+                return scoreSplitString(scores, s);  // String.toLowerCase does not fold these char by char
+            }
         }
+        if (s.length() > from) score += scoreSpan(scores, s, from, s.length());
+        return score;
+    }
+
+    private double scoreSpan(double[] scores, String s, int from, int to) {
+        return scoreOf(scores, textGraph.getWordIdLowerCase(s, from, to));
+    }
+
+    private double scoreSplitString(double[] scores, String s) {
         s = s.toLowerCase();
         double score = 0.0;
-        String [] words = s.split(DEFAULT_WORD_DELIMITER);
+        String [] words = Tokenizer.splitWhitespace(s);
         for (String word : words) {
-            score += textWordScores.getOrDefault(word, 0.0);
+            score += scoreOf(scores, textGraph.getWordId(word));
         }
         return score;
     }
 
+    private static double scoreOf(double[] scores, int id) {
+        return id < 0 ? 0.0 : scores[id];
+    }
+
+    /* languages where lower case depends on more than the char itself */
+    private static boolean isLocaleCharFoldable() {
+        String language = Locale.getDefault().getLanguage();
+        return !language.equals("tr") && !language.equals("az") && !language.equals("lt");
+    }
+
     /**
      * Get a list of raw lines (including stop words) delimited only by punctuation
      * sorted by descending score
@@ -278,27 +778,16 @@ public class TextAnalyzer {
      * @return
      */
     public List<ScoredWord> getAbstract(int n) {
-        List<ScoredWord> output = new ArrayList<>();
-
-        Set<String> setOfLines = new HashSet<>(textLines); //eliminate duplicates
-
-        PriorityQueue<ScoredWord> scoredLines = new PriorityQueue<>();
-
-        for(String line : setOfLines) {
-            if (line.length() < DEFAULT_MIN_LENGTH) continue;
-            double score = scoreString(line);
+        double[] scores = getScores();
+        long start = Metrics.start();
+        TopKSelector scoredLines = new TopKSelector(n);
 
-            ScoredWord sc = new ScoredWord(line, score);
-            scoredLines.add(sc);
-        }
-
-        for(int i = 0; i < n; i++) {
-            if (scoredLines.isEmpty()) {
-                break;
-            }
+        textLines.forEachDistinct(line -> {
+            if (line.length() >= DEFAULT_MIN_LENGTH) scoredLines.offer(line, scoreString(scores, line));
+        });
 
-           output.add(scoredLines.remove());
-        }
+        List<ScoredWord> output = scoredLines.getSorted();
+        Metrics.stop(Metrics.Stage.SELECTION, start);
         return output;
     }
 
@@ -312,13 +801,10 @@ public class TextAnalyzer {
 
         StringBuilder sb = new StringBuilder();
 
-        for (String line : textLines) {
-
-            if (keyPhrases.contains(line)) {
-                String capitalizedLine = line.substring(0, 1).toUpperCase() + line.substring(1);
-                sb.append(capitalizedLine);
-                sb.append(". ");
-            }
+        for (String line : textLines.inTextOrder(keyPhrases)) {
+            String capitalizedLine = line.substring(0, 1).toUpperCase() + line.substring(1);
+            sb.append(capitalizedLine);
+            sb.append(". ");
         }
 
         return sb.toString();
@@ -332,20 +818,34 @@ public class TextAnalyzer {
      * @return
      */
     public List<String> getKeywordCandidates(List<String> lines) {
-        List<String> output = new LinkedList<>();
+        List<String> output = new ArrayList<>();
 
         for (String line : lines) {
-            line = line.toLowerCase();
-            String[] sentences = line.split(regexSplit);
-            for (String sentence : sentences) {
-                sentence = sentence.trim();
-                sentence = sentence.replace('-', ' ');  // split composed words
-                if (sentence.length() >= DEFAULT_MIN_LENGTH ) {
-                    output.add(sentence);
-                }
-            }
+            forEachCandidate(line, output::add);
         }
 
         return output;
     }
+
+    /**
+     * Pass each content candidate of a single line to consumer
+     * @param line
+     * @param consumer
+     */
+    private void forEachCandidate(String line, Consumer<String> consumer) {
+        long start = Metrics.start();
+        line = line.toLowerCase();
+        List<String> sentences = stopWordsSplitter.split(line);
+        Metrics.stop(Metrics.Stage.CANDIDATES, start);
+        int numCandidates = 0;
+        for (String sentence : sentences) {
+            sentence = sentence.trim();
+            sentence = sentence.replace('-', ' ');  // split composed words
+            if (sentence.length() >= DEFAULT_MIN_LENGTH ) {
+                numCandidates++;
+                consumer.accept(sentence);
+            }
+        }
+        Metrics.count(Metrics.Counter.CANDIDATES, numCandidates);
+    }
 }
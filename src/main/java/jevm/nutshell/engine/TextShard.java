@@ -0,0 +1,55 @@
+package jevm.nutshell.engine;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lines of a text together with its keyword candidates and words graph.  Shards are built
+ * independently of any analyzer state so several texts can be processed in parallel
+ * and then added to an analyzer.  Corpus shards of scoring methods using document
+ * frequency only have the distinct words of the text and its length, no graph
+ */
+public class TextShard {
+
+    final List<String> lines;
+    final List<String> candidates;
+    final WordsGraph graph;  // null for a shard of document words
+    private final Set<String> words;
+    private final long length;
+
+    TextShard(List<String> lines, List<String> candidates, WordsGraph graph) {
+        this.lines = lines;
+        this.candidates = candidates;
+        this.graph = graph;
+        this.words = null;
+        this.length = graph.getTotalFrequency();
+    }
+
+    TextShard(List<String> lines, List<String> candidates, Set<String> words, long length) {
+        this.lines = lines;
+        this.candidates = candidates;
+        this.graph = null;
+        this.words = words;
+        this.length = length;
+    }
+
+    /**
+     * Distinct words of the text, taken from the graph if the shard has one
+     */
+    Set<String> getWords() {
+        if (words != null) return words;
+        Set<String> graphWords = new HashSet<>();
+        for (int id = 0; id < graph.getIdBound(); id++) {
+            if (graph.getFrequency(id) > 0) graphWords.add(graph.getWord(id));
+        }
+        return graphWords;
+    }
+
+    /**
+     * Number of words of the text
+     */
+    long getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,133 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.ScoredWord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Text of an analyzer kept to a sliding window over a stream of lines, the last maxLines
+ * lines and/or the lines added in the last maxAgeMillis.  Lines leaving the window are
+ * removed from the analyzer with removeText so keywords are always those of the window,
+ * scored incrementally as lines enter and leave it instead of building the text again
+ */
+public class TextWindow {
+
+    private static class Entry {
+        final String line;
+        final long time;
+
+        Entry(String line, long time) {
+            this.line = line;
+            this.time = time;
+        }
+    }
+
+    private final TextAnalyzer analyzer;
+    private final int maxLines;
+    private final long maxAgeMillis;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    /**
+     * Window of the latest lines
+     * @param analyzer analyzer without text, with the corpus if any
+     * @param maxLines
+     */
+    public TextWindow(TextAnalyzer analyzer, int maxLines) {
+        this(analyzer, maxLines, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param analyzer analyzer without text, with the corpus if any
+     * @param maxLines lines kept, Integer.MAX_VALUE for no limit
+     * @param maxAgeMillis lines added longer ago are removed, Long.MAX_VALUE for no limit
+     */
+    public TextWindow(TextAnalyzer analyzer, int maxLines, long maxAgeMillis) {
+        if (maxLines < 1 || maxAgeMillis < 1) {
+            throw new IllegalArgumentException("Invalid window " + maxLines + " lines, " + maxAgeMillis + " ms");
+        }
+        this.analyzer = analyzer;
+        this.maxLines = maxLines;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Add a line at the current time
+     * @param line
+     */
+    public void add(String line) {
+        add(Collections.singletonList(line), System.currentTimeMillis());
+    }
+
+    /**
+     * Add lines at the supplied time, lines that leave the window are removed
+     * @param lines
+     * @param time milliseconds, not less than the time of earlier lines
+     */
+    public void add(List<String> lines, long time) {
+        analyzer.addText(lines);
+        for (String line : lines) {
+            entries.addLast(new Entry(line, time));
+        }
+
+        List<String> removed = new ArrayList<>();
+        while (entries.size() > maxLines) {
+            removed.add(entries.removeFirst().line);
+        }
+        collectExpired(time, removed);
+        analyzer.removeText(removed);
+    }
+
+    /**
+     * Remove the lines that are out of the window at the supplied time, for queries made
+     * when no line has been added for a while
+     * @param time milliseconds
+     */
+    public void expire(long time) {
+        List<String> removed = new ArrayList<>();
+        collectExpired(time, removed);
+        analyzer.removeText(removed);
+    }
+
+    private void collectExpired(long time, List<String> removed) {
+        while (!entries.isEmpty() && time - entries.peekFirst().time >= maxAgeMillis) {
+            removed.add(entries.removeFirst().line);
+        }
+    }
+
+    /**
+     * Number of lines in the window
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Analyzer whose text is the window, for abstracts or anything else
+     * @return
+     */
+    public TextAnalyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Keywords of the lines in the window, same as TextAnalyzer.getKeywords
+     * @param n
+     * @return
+     */
+    public List<ScoredWord> getKeywords(int n) {
+        return analyzer.getKeywords(n);
+    }
+
+    /**
+     * Single word keywords of the lines in the window, same as TextAnalyzer.getKeyWordsSingle
+     * @param n
+     * @return
+     */
+    public List<ScoredWord> getKeyWordsSingle(int n) {
+        return analyzer.getKeyWordsSingle(n);
+    }
+}
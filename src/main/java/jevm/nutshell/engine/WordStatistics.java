@@ -0,0 +1,45 @@
+package jevm.nutshell.engine;
+
+/**
+ * Counters of the words of a graph as needed for scoring them, implemented exactly by
+ * WordsGraph and approximately in fixed memory by ApproximateWordsGraph
+ */
+public interface WordStatistics {
+
+    /**
+     * Id of a word to get its counters
+     * @param word
+     * @return id or -1 if word is not in the graph
+     */
+    int getWordId(String word);
+
+    int getFrequency(int id);
+
+    int getInDegree(int id);
+
+    int getOutDegree(int id);
+
+    int getWeightedInDegree(int id);
+
+    int getWeightedOutDegree(int id);
+
+    /**
+     * Sum of the frequencies of all words
+     * @return
+     */
+    long getTotalFrequency();
+
+    /**
+     * Number of changes made to the graph, only grows
+     * @return
+     */
+    int getModCount();
+
+    /**
+     * Check if a word may have changed after the graph had the supplied modification count
+     * @param id
+     * @param modCount a value previously returned by getModCount
+     * @return
+     */
+    boolean isModifiedSince(int id, int modCount);
+}
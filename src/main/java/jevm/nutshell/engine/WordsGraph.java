@@ -1,20 +1,39 @@
 package jevm.nutshell.engine;
 
+import jevm.nutshell.data.LongIntHashMap;
+import jevm.nutshell.data.WordDictionary;
+import jevm.nutshell.metrics.Metrics;
+import jevm.nutshell.parser.Tokenizer;
+
 import java.util.*;
 
 /**
  * Weighted directed graph of words for text analysis, each word maintains
- * its frequency, and each edge also maintain its frequency
+ * its frequency, and each edge also maintain its frequency.
+ * Words are interned into dense int ids, node counters are kept in primitive arrays
+ * indexed by id and edge weights in a primitive map keyed by (sourceId << 32 | destinationId).
+ * Every change increments a modification count and stamps the words it touches so users
+ * can find which words changed since they last looked at the graph
  */
-public class WordsGraph {
-    public static final String DEFAULT_WORD_DELIMITER = "\\s";
-
-    protected Map<String, WordData> adjacencySets;
+public class WordsGraph implements WordStatistics {
+    public static final String DEFAULT_WORD_DELIMITER = Tokenizer.WHITESPACE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    protected WordDictionary dictionary = new WordDictionary();
+    protected LongIntHashMap weightedEdges = new LongIntHashMap();
+    protected int[] frequency = new int[INITIAL_CAPACITY];
+    protected int[] inDegree = new int[INITIAL_CAPACITY];
+    protected int[] outDegree = new int[INITIAL_CAPACITY];
+    protected int[] weightedInDegree = new int[INITIAL_CAPACITY];
+    protected int[] weightedOutDegree = new int[INITIAL_CAPACITY];
+    protected int[] lastModified = new int[INITIAL_CAPACITY];
     protected int numEdges = 0;
     protected int numWeightedEdges = 0;
+    protected long totalFrequency = 0;
+    protected int modCount = 0;
+    protected int numRemovedWords = 0;  // ids left with zero counters by removals
 
     public WordsGraph() {
-        adjacencySets = new HashMap<>();
     }
 
     /**
@@ -40,10 +59,9 @@ public class WordsGraph {
     }
 
     /**
-     * Data kept for each node word
+     * Snapshot of the data kept for each node word
      */
-    public class WordData {
-        Map<Edge, Integer> weightedEdges = new HashMap<>(); // Weighted Edge
+    public static class WordData {
         int frequency = 0;
         int inDegree = 0;
         int outDegree = 0;
@@ -51,7 +69,7 @@ public class WordsGraph {
         int weightedOutDegree = 0;
     }
 
-    public class Edge {
+    public static class Edge {
         public String source;
         public String destination;
 
@@ -80,15 +98,50 @@ public class WordsGraph {
         }
     }
 
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static int edgeSource(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int edgeDestination(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Get the id of a word, adding it with zero counters if it is not in the graph
+     */
+    private int internWord(String word) {
+        int numWords = dictionary.size();
+        int id = dictionary.add(word);
+        if (id < numWords && numRemovedWords > 0 && lastModified[id] != modCount && isRemoved(id)) {
+            numRemovedWords--;  // removed word added again
+        }
+        if (id == frequency.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, id << 1);
+            frequency = Arrays.copyOf(frequency, capacity);
+            inDegree = Arrays.copyOf(inDegree, capacity);
+            outDegree = Arrays.copyOf(outDegree, capacity);
+            weightedInDegree = Arrays.copyOf(weightedInDegree, capacity);
+            weightedOutDegree = Arrays.copyOf(weightedOutDegree, capacity);
+            lastModified = Arrays.copyOf(lastModified, capacity);
+        }
+        lastModified[id] = modCount;
+        return id;
+    }
+
     /**
      * A a singhle word to the graph
      * @param word
      */
     public void addWord(String word) {
         if (word == null || word.equals("")) return;
-        WordData data = adjacencySets.getOrDefault(word, new WordData());;
-        data.frequency++;
-        adjacencySets.put(word, data);
+        modCount++;
+        int id = internWord(word);
+        frequency[id]++;
+        totalFrequency++;
     }
 
     /**
@@ -101,34 +154,23 @@ public class WordsGraph {
     public void addEdge(String from, String to) {
         if (from == null || from.equals("")) return;
 
-        WordData fromData = adjacencySets.getOrDefault(from, new WordData());
-        WordData toData = adjacencySets.getOrDefault(to, new WordData());
-
-        Edge newEdge = new Edge(from, to);
-
-        if (fromData.weightedEdges.containsKey(newEdge)) {
-            Integer frequency = fromData.weightedEdges.get(newEdge);
-            frequency++;  // update edge weight
-            fromData.weightedEdges.put(newEdge, frequency);
-            fromData.weightedInDegree++;
-            toData.weightedOutDegree++;
-            numWeightedEdges++;
-            adjacencySets.put(to, toData);
-
-        } else if (to != null && !to.equals("")){
-            // if edge is new, update degrees and add to set
-            fromData.weightedInDegree++;
-            toData.weightedOutDegree++;
-            fromData.outDegree++;
-            toData.inDegree++;
-            numEdges++;
+        modCount++;
+        int fromId = internWord(from);
+        if (to != null && !to.equals("")) {
+            int toId = internWord(to);
+            if (weightedEdges.addTo(edgeKey(fromId, toId), 1) == 1) {
+                // if edge is new, update degrees
+                outDegree[fromId]++;
+                inDegree[toId]++;
+                numEdges++;
+            }
+            weightedInDegree[fromId]++;
+            weightedOutDegree[toId]++;
             numWeightedEdges++;
-            fromData.weightedEdges.put(newEdge, 1); //add new edge to set
-            adjacencySets.put(to, toData);
         }
 
-        fromData.frequency++; // freq only updated in from to avoid double counting
-        adjacencySets.put(from, fromData);
+        frequency[fromId]++; // freq only updated in from to avoid double counting
+        totalFrequency++;
     }
 
     /**
@@ -147,13 +189,190 @@ public class WordsGraph {
      * @param delim regex used for split
      */
     public void addString(String s, String delim) {
-        String[] words = s.split(delim);
+        long start = Metrics.start();
+        String[] words = Tokenizer.split(s, delim);
         if (words.length == 0) return;
 
         for (int i = 0; i < words.length - 1; i++) {
             addEdge(words[i], words[i + 1]);
         }
         addWord(words[words.length - 1]);
+        Metrics.stop(Metrics.Stage.GRAPH, start);
+        Metrics.count(Metrics.Counter.WORDS, words.length);
+        Metrics.count(Metrics.Counter.EDGES, words.length - 1);
+    }
+
+    /**
+     * Remove a single word previously added with addWord, the reverse of addWord.
+     * Words removed down to zero frequency keep their ids with zero counters
+     * @param word
+     * @throws IllegalArgumentException if the word has zero frequency
+     */
+    public void removeWord(String word) {
+        if (word == null || word.equals("")) return;
+        int id = dictionary.getId(word);
+        if (id < 0 || frequency[id] == 0) throw new IllegalArgumentException("Word not in graph: " + word);
+
+        modCount++;
+        lastModified[id] = modCount;
+        frequency[id]--;
+        totalFrequency--;
+        if (isRemoved(id)) numRemovedWords++;
+    }
+
+    /**
+     * Remove an edge previously added with addEdge, the reverse of addEdge.  Only the
+     * frequency of the first word is updated so removeWord(to) needs to be called
+     * afterwards, an edge whose weight gets to zero is removed from the degrees
+     * @param from
+     * @param to
+     * @throws IllegalArgumentException if the word or edge are not in the graph
+     */
+    public void removeEdge(String from, String to) {
+        if (from == null || from.equals("")) return;
+        int fromId = dictionary.getId(from);
+        if (fromId < 0 || frequency[fromId] == 0) throw new IllegalArgumentException("Word not in graph: " + from);
+        boolean hasEdge = to != null && !to.equals("");
+        int toId = hasEdge ? dictionary.getId(to) : -1;
+        long key = edgeKey(fromId, toId);
+        if (hasEdge && (toId < 0 || !weightedEdges.containsKey(key))) {
+            throw new IllegalArgumentException("Edge not in graph: " + from + " " + to);
+        }
+
+        modCount++;
+        lastModified[fromId] = modCount;
+        if (hasEdge) {
+            lastModified[toId] = modCount;
+            if (weightedEdges.addTo(key, -1) == 0) {
+                // edge is gone, update degrees
+                weightedEdges.remove(key);
+                outDegree[fromId]--;
+                inDegree[toId]--;
+                numEdges--;
+            }
+            weightedInDegree[fromId]--;
+            weightedOutDegree[toId]--;
+            numWeightedEdges--;
+        }
+
+        frequency[fromId]--;
+        totalFrequency--;
+        if (isRemoved(fromId)) numRemovedWords++;
+        if (hasEdge && toId != fromId && isRemoved(toId)) numRemovedWords++;
+    }
+
+    /* no occurrences nor edges left, compact drops the word */
+    private boolean isRemoved(int id) {
+        return frequency[id] == 0 && inDegree[id] == 0 && outDegree[id] == 0;
+    }
+
+    /**
+     * Number of words removed down to zero counters that are still given an id, the ids
+     * compact would drop
+     * @return
+     */
+    public int getNumRemovedWords() {
+        return numRemovedWords;
+    }
+
+    /**
+     * Remove a string previously added with addString, split the same way
+     * @param s
+     */
+    public void removeString(String s) {
+        removeString(s, DEFAULT_WORD_DELIMITER);
+    }
+
+    /**
+     * Remove a string previously added with addString(s, delim), the graph is left as if
+     * the string had never been added except for the ids of words that are gone
+     * @param s
+     * @param delim regex used for split
+     */
+    public void removeString(String s, String delim) {
+        String[] words = Tokenizer.split(s, delim);
+        if (words.length == 0) return;
+
+        for (int i = 0; i < words.length - 1; i++) {
+            removeEdge(words[i], words[i + 1]);
+        }
+        removeWord(words[words.length - 1]);
+    }
+
+    /**
+     * Copy of the graph without the words removed down to zero counters, ids are given
+     * again in the same order so the copy has dense ids of the words still in the graph
+     * @return
+     */
+    public WordsGraph compact() {
+        WordsGraph graph = new WordsGraph();
+        int[] ids = new int[getIdBound()];
+        for (int id = 0; id < ids.length; id++) {
+            if (isRemoved(id)) {
+                ids[id] = -1;
+                continue;
+            }
+            int newId = graph.internWord(dictionary.getWord(id));
+            ids[id] = newId;
+            graph.frequency[newId] = frequency[id];
+            graph.inDegree[newId] = inDegree[id];
+            graph.outDegree[newId] = outDegree[id];
+            graph.weightedInDegree[newId] = weightedInDegree[id];
+            graph.weightedOutDegree[newId] = weightedOutDegree[id];
+        }
+
+        graph.weightedEdges = new LongIntHashMap(weightedEdges.size());
+        weightedEdges.forEach((key, weight) ->
+                graph.weightedEdges.put(edgeKey(ids[edgeSource(key)], ids[edgeDestination(key)]), weight));
+        graph.numEdges = numEdges;
+        graph.numWeightedEdges = numWeightedEdges;
+        graph.totalFrequency = totalFrequency;
+        return graph;
+    }
+
+    /**
+     * Add all words and edges of another graph, the result is the same as adding to this
+     * graph the strings that built the other one, including the ids given to new words.
+     * Merge is associative so graphs of several texts may be built in parallel and merged
+     * afterwards in the order of the texts
+     * @param other
+     */
+    public void merge(WordsGraph other) {
+        long start = Metrics.start();
+        modCount++;
+        int[] ids = new int[other.getIdBound()];
+        for (int otherId = 0; otherId < ids.length; otherId++) {
+            int id = internWord(other.dictionary.getWord(otherId));
+            ids[otherId] = id;
+            frequency[id] += other.frequency[otherId];
+            weightedInDegree[id] += other.weightedInDegree[otherId];
+            weightedOutDegree[id] += other.weightedOutDegree[otherId];
+            if (other.isRemoved(otherId) && isRemoved(id)) numRemovedWords++;
+        }
+
+        other.weightedEdges.forEach((key, weight) -> {
+            int fromId = ids[edgeSource(key)];
+            int toId = ids[edgeDestination(key)];
+            if (weightedEdges.addTo(edgeKey(fromId, toId), weight) == weight) {
+                // edge is new to this graph
+                outDegree[fromId]++;
+                inDegree[toId]++;
+                numEdges++;
+            }
+        });
+        numWeightedEdges += other.numWeightedEdges;
+        totalFrequency += other.totalFrequency;
+        Metrics.stop(Metrics.Stage.GRAPH, start);
+    }
+
+    private WordData getWordData(int id) {
+        WordData data = new WordData();
+        data.frequency = frequency[id];
+        data.inDegree = inDegree[id];
+        data.outDegree = outDegree[id];
+        data.weightedInDegree = weightedInDegree[id];
+        data.weightedOutDegree = weightedOutDegree[id];
+        return data;
     }
 
     /**
@@ -162,12 +381,89 @@ public class WordsGraph {
      * @return
      */
     public List<Map.Entry<String, WordData>> getSortedList(Comparator<Map.Entry<String, WordData>> comparator) {
-        List<Map.Entry<String, WordData>> entries = new ArrayList<>(adjacencySets.entrySet());
+        List<Map.Entry<String, WordData>> entries = getAllEntries();
 
         entries.sort(comparator);
         return entries;
     }
 
+    /**
+     * Get the id of a word, ids are dense from 0 to getIdBound() - 1
+     * If word is not in the graph returns -1, removed words keep their id
+     * @param s
+     * @return
+     */
+    public int getWordId(String s) {
+        return dictionary.getId(s);
+    }
+
+    /**
+     * Id of the word formed by chars [from, to) of a char sequence lower cased char by
+     * char, without creating a substring
+     * @param s
+     * @param from
+     * @param to
+     * @return id or -1 if the word is not in the graph
+     */
+    public int getWordIdLowerCase(CharSequence s, int from, int to) {
+        return dictionary.getIdLowerCase(s, from, to);
+    }
+
+    /**
+     * Get the word with the supplied id
+     * @param id
+     * @return
+     */
+    public String getWord(int id) {
+        return dictionary.getWord(id);
+    }
+
+    public int getFrequency(int id) {
+        return frequency[id];
+    }
+
+    public int getInDegree(int id) {
+        return inDegree[id];
+    }
+
+    public int getOutDegree(int id) {
+        return outDegree[id];
+    }
+
+    public int getWeightedInDegree(int id) {
+        return weightedInDegree[id];
+    }
+
+    public int getWeightedOutDegree(int id) {
+        return weightedOutDegree[id];
+    }
+
+    /**
+     * Sum of the frequencies of all words
+     * @return
+     */
+    public long getTotalFrequency() {
+        return totalFrequency;
+    }
+
+    /**
+     * Number of changes made to the graph, only grows
+     * @return
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Check if a word has changed after the graph had the supplied modification count
+     * @param id
+     * @param modCount a value previously returned by getModCount
+     * @return
+     */
+    public boolean isModifiedSince(int id, int modCount) {
+        return lastModified[id] > modCount;
+    }
+
     /**
      * Get frequency of a word.
      * If word is not in the graph returns -1
@@ -175,11 +471,8 @@ public class WordsGraph {
      * @return
      */
     public int getWordFreq(String s) {
-        if (!adjacencySets.containsKey(s)) {
-            return -1;
-        } else {
-            return adjacencySets.get(s).frequency;
-        }
+        int id = dictionary.getId(s);
+        return id < 0 ? -1 : frequency[id];
     }
 
     /**
@@ -189,11 +482,8 @@ public class WordsGraph {
      * @return
      */
     public int getWordOutDegree(String s) {
-        if (!adjacencySets.containsKey(s)) {
-            return -1;
-        } else {
-            return adjacencySets.get(s).outDegree;
-        }
+        int id = dictionary.getId(s);
+        return id < 0 ? -1 : outDegree[id];
     }
 
     /**
@@ -203,11 +493,8 @@ public class WordsGraph {
      * @return
      */
     public int getWordInDegree(String s) {
-        if (!adjacencySets.containsKey(s)) {
-            return -1;
-        } else {
-            return adjacencySets.get(s).inDegree;
-        }
+        int id = dictionary.getId(s);
+        return id < 0 ? -1 : inDegree[id];
     }
 
 
@@ -234,19 +521,28 @@ public class WordsGraph {
      * @return
      */
     public Integer getEdgeWeight(String from, String to) {
-        Edge e = new Edge(from, to);
-        if (!adjacencySets.containsKey(from) || !adjacencySets.containsKey(to)) return -1;
+        int fromId = dictionary.getId(from);
+        int toId = dictionary.getId(to);
+        if (fromId < 0 || toId < 0) return -1;
 
-        Map<Edge, Integer> edges = adjacencySets.get(from).weightedEdges;
-        return (edges.getOrDefault(e, -1));
+        return weightedEdges.get(edgeKey(fromId, toId), -1);
     }
 
     /**
-     * Total unique node words in the graph
+     * Total unique node words in the graph, not counting removed words
      * @return
      */
     public int getNumWords() {
-        return adjacencySets.size();
+        return dictionary.size() - numRemovedWords;
+    }
+
+    /**
+     * Bound of word ids, ids from 0 to getIdBound() - 1 include those of removed words
+     * until the graph is compacted
+     * @return
+     */
+    int getIdBound() {
+        return dictionary.size();
     }
 
     /**
@@ -258,11 +554,16 @@ public class WordsGraph {
     }
 
     /**
-     * List of all entries in the graph
+     * List of all entries in the graph, ordered by word id, without removed words
      * @return
      */
     public List<Map.Entry<String, WordData>> getAllEntries() {
-        return new ArrayList<>(adjacencySets.entrySet());
+        List<Map.Entry<String, WordData>> output = new ArrayList<>(getNumWords());
+        for (int id = 0; id < dictionary.size(); id++) {
+            if (isRemoved(id)) continue;
+            output.add(new AbstractMap.SimpleImmutableEntry<>(dictionary.getWord(id), getWordData(id)));
+        }
+        return output;
     }
 
     /**
@@ -271,13 +572,8 @@ public class WordsGraph {
      */
     public Map<Edge, Integer> getAllWeightedEdges() {
         Map<Edge, Integer> output = new HashMap<>();
-        for(Map.Entry<String, WordData> entry : adjacencySets.entrySet()) {
-            Map<Edge, Integer> entryEdges = entry.getValue().weightedEdges;
-
-            for (Edge edge : entryEdges.keySet()) {
-                output.put(edge, entryEdges.get(edge));
-            }
-        }
+        weightedEdges.forEach((key, weight) ->
+                output.put(new Edge(dictionary.getWord(edgeSource(key)), dictionary.getWord(edgeDestination(key))), weight));
         return output;
     }
 
@@ -289,14 +585,10 @@ public class WordsGraph {
     public Map<String, Double> getWordRelativeFreqs() {
         Map<String, Double> output = new HashMap<>();
 
-        int total = 0;
-        for (Map.Entry<String, WordData> e : adjacencySets.entrySet()) {
-            total += e.getValue().frequency;
-        }
-
-        for (Map.Entry<String, WordData> e : adjacencySets.entrySet()) {
-            Double relFreq = (double) e.getValue().frequency / total;
-            output.put(e.getKey(), relFreq);
+        for (int id = 0; id < dictionary.size(); id++) {
+            if (isRemoved(id)) continue;
+            Double relFreq = (double) frequency[id] / totalFrequency;
+            output.put(dictionary.getWord(id), relFreq);
         }
 
         return output;
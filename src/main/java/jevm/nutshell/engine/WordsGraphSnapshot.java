@@ -0,0 +1,160 @@
+package jevm.nutshell.engine;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact binary file of a WordsGraph so a corpus graph can be built once and loaded
+ * in later runs without parsing the corpus again, or used in place with MappedWordsGraph.
+ * Layout, all numbers are big endian ints:
+ * <pre>
+ * header      MAGIC VERSION numWords numEdges numWeightedEdges indexCapacity
+ * dictionary  word offsets [numWords + 1], UTF-8 bytes of all words, zeros up to a multiple of 4
+ * nodes       frequency, inDegree, outDegree, weightedInDegree, weightedOutDegree [numWords each]
+ * edges       source [numEdges], destination [numEdges], weight [numEdges] sorted by source, destination
+ * index       String.hashCode of each word [numWords], id + 1 or 0 if empty [indexCapacity]
+ *             open addressing table with linear probing, indexCapacity is a power of 2
+ * </pre>
+ * Words appear in id order so a loaded graph keeps the same ids.  Version 1 files have
+ * neither indexCapacity, padding nor index and are still read
+ */
+public class WordsGraphSnapshot {
+
+    public static final int MAGIC = 0x4E555447;  // "NUTG"
+    public static final int VERSION = 2;
+    static final int HEADER_SIZE = 6 * Integer.BYTES;
+    static final float INDEX_LOAD_FACTOR = 0.5f;
+
+    private WordsGraphSnapshot() {
+    }
+
+    /**
+     * Write graph to a snapshot file, replacing it if it exists
+     * @param graph
+     * @param file
+     * @throws IOException
+     */
+    public static void write(WordsGraph graph, File file) throws IOException {
+        if (graph.getNumRemovedWords() > 0) graph = graph.compact();  // ids of removed words are not saved
+        int numWords = graph.getIdBound();
+
+        byte[][] wordBytes = new byte[numWords][];
+        for (int id = 0; id < numWords; id++) {
+            wordBytes[id] = graph.getWord(id).getBytes(StandardCharsets.UTF_8);
+        }
+
+        long[] edgeKeys = new long[graph.weightedEdges.size()];
+        int[] count = {0};
+        graph.weightedEdges.forEach((key, weight) -> edgeKeys[count[0]++] = key);
+        Arrays.sort(edgeKeys);  // ids are not negative so keys sort by source then destination
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(numWords);
+            out.writeInt(edgeKeys.length);
+            out.writeInt(graph.numWeightedEdges);
+            int indexCapacity = indexCapacity(numWords);
+            out.writeInt(indexCapacity);
+
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] bytes : wordBytes) {
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : wordBytes) {
+                out.write(bytes);
+            }
+            for (int i = offset; i % Integer.BYTES != 0; i++) {
+                out.write(0);
+            }
+
+            writeInts(out, graph.frequency, numWords);
+            writeInts(out, graph.inDegree, numWords);
+            writeInts(out, graph.outDegree, numWords);
+            writeInts(out, graph.weightedInDegree, numWords);
+            writeInts(out, graph.weightedOutDegree, numWords);
+
+            for (long key : edgeKeys) {
+                out.writeInt((int) (key >>> 32));
+            }
+            for (long key : edgeKeys) {
+                out.writeInt((int) key);
+            }
+            for (long key : edgeKeys) {
+                out.writeInt(graph.weightedEdges.get(key, 0));
+            }
+
+            int[] hashes = new int[numWords];
+            int[] slots = new int[indexCapacity];
+            for (int id = 0; id < numWords; id++) {
+                hashes[id] = graph.getWord(id).hashCode();
+                int i = indexSlot(hashes[id], indexCapacity - 1);
+                while (slots[i] != 0) i = (i + 1) & (indexCapacity - 1);
+                slots[i] = id + 1;
+            }
+            writeInts(out, hashes, numWords);
+            writeInts(out, slots, indexCapacity);
+        }
+    }
+
+    static int indexCapacity(int numWords) {
+        return Integer.highestOneBit(Math.max(16, (int) (numWords / INDEX_LOAD_FACTOR)) - 1) << 1;
+    }
+
+    /* first slot of a word hash, same mixing as WordDictionary */
+    static int indexSlot(int hash, int mask) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Map a snapshot file into memory and check its header
+     * @param file
+     * @return buffer positioned after MAGIC, at the version
+     * @throws IOException if file is not a snapshot of a known version
+     */
+    static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": snapshot larger than 2GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException(file + ": not a words graph snapshot");
+            }
+            int version = buffer.getInt(buffer.position());
+            if (version != 1 && version != VERSION) {
+                throw new IOException(file + ": unsupported snapshot version " + version);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Load a snapshot file into a new graph, the result is the same graph that was written
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static WordsGraph read(File file) throws IOException {
+        MappedWordsGraph mapped = new MappedWordsGraph(file);
+        try {
+            return mapped.toWordsGraph();
+        } catch (RuntimeException e) {
+            // duplicated words or counters out of range
+            throw new IOException(file + ": corrupted snapshot", e);
+        }
+    }
+}
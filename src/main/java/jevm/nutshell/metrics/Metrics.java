@@ -0,0 +1,239 @@
+package jevm.nutshell.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time spent in each stage of analysis and counts of what went through them, summed over
+ * all threads since the last reset.  Disabled by default, then start returns without
+ * reading the clock and stop and count do nothing, so instrumented code only pays a
+ * volatile read.  Stages are timed exclusive of each other, e.g. parsing does not include
+ * the time the consumer of each line takes
+ */
+public final class Metrics {
+
+    public enum Stage { PARSE, CANDIDATES, GRAPH, SCORING, SELECTION }
+
+    public enum Counter {
+        BYTES(Stage.PARSE),
+        SENTENCES(Stage.PARSE),
+        CANDIDATES(Stage.CANDIDATES),
+        WORDS(Stage.GRAPH),
+        EDGES(Stage.GRAPH);
+
+        /* stage whose time the rate of the counter is given over */
+        public final Stage stage;
+
+        Counter(Stage stage) {
+            this.stage = stage;
+        }
+    }
+
+    public static final String OBJECT_NAME = "jevm.nutshell:type=Metrics";
+
+    private static final long DISABLED = Long.MIN_VALUE;
+    private static volatile boolean enabled = false;
+    private static final LongAdder[] nanos = adders(Stage.values().length);
+    private static final LongAdder[] counts = adders(Counter.values().length);
+
+    private Metrics() {
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Start timing a stage
+     * @return value to pass to stop
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * Add the time since start to a stage
+     * @param stage
+     * @param start value returned by start
+     */
+    public static void stop(Stage stage, long start) {
+        if (start != DISABLED) nanos[stage.ordinal()].add(System.nanoTime() - start);
+    }
+
+    public static void count(Counter counter, long n) {
+        if (enabled) counts[counter.ordinal()].add(n);
+    }
+
+    public static long getNanos(Stage stage) {
+        return nanos[stage.ordinal()].sum();
+    }
+
+    public static long getCount(Counter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+
+    /**
+     * Count per second of the time of its stage
+     * @param counter
+     * @return rate, 0 if the stage took no time
+     */
+    public static double getRate(Counter counter) {
+        long stageNanos = getNanos(counter.stage);
+        return stageNanos == 0 ? 0.0 : getCount(counter) * 1e9 / stageNanos;
+    }
+
+    /**
+     * Set all times and counts to 0
+     */
+    public static void reset() {
+        for (LongAdder adder : nanos) adder.reset();
+        for (LongAdder adder : counts) adder.reset();
+    }
+
+    /**
+     * Table of the time of each stage and every counter with its rate
+     * @return
+     */
+    public static String summary() {
+        long total = 0;
+        for (Stage stage : Stage.values()) {
+            total += getNanos(stage);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-12s %12s %7s%n", "stage", "ms", "%"));
+        for (Stage stage : Stage.values()) {
+            long stageNanos = getNanos(stage);
+            sb.append(String.format(Locale.ROOT, "%-12s %12.3f %7.1f%n", name(stage), stageNanos / 1e6,
+                    total == 0 ? 0.0 : stageNanos * 100.0 / total));
+        }
+        sb.append(String.format(Locale.ROOT, "%-12s %12s %16s%n", "counter", "count", "per second"));
+        for (Counter counter : Counter.values()) {
+            sb.append(String.format(Locale.ROOT, "%-12s %12d %16.0f%n", name(counter), getCount(counter),
+                    getRate(counter)));
+        }
+        return sb.toString();
+    }
+
+    private static String name(Enum<?> e) {
+        return e.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Register the MetricsMXBean in the platform MBean server under OBJECT_NAME, for
+     * long running processes.  Nothing is done if it is already registered
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered before
+        } catch (JMException e) {
+            throw new IllegalStateException("Can not register metrics MBean", e);
+        }
+    }
+
+    /* MBean view of the static counters */
+    private static class MetricsBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+
+        @Override
+        public String getSummary() {
+            return Metrics.summary();
+        }
+
+        @Override
+        public long getParseNanos() {
+            return getNanos(Stage.PARSE);
+        }
+
+        @Override
+        public long getCandidatesNanos() {
+            return getNanos(Stage.CANDIDATES);
+        }
+
+        @Override
+        public long getGraphNanos() {
+            return getNanos(Stage.GRAPH);
+        }
+
+        @Override
+        public long getScoringNanos() {
+            return getNanos(Stage.SCORING);
+        }
+
+        @Override
+        public long getSelectionNanos() {
+            return getNanos(Stage.SELECTION);
+        }
+
+        @Override
+        public long getBytes() {
+            return getCount(Counter.BYTES);
+        }
+
+        @Override
+        public long getSentences() {
+            return getCount(Counter.SENTENCES);
+        }
+
+        @Override
+        public long getCandidates() {
+            return getCount(Counter.CANDIDATES);
+        }
+
+        @Override
+        public long getWords() {
+            return getCount(Counter.WORDS);
+        }
+
+        @Override
+        public long getEdges() {
+            return getCount(Counter.EDGES);
+        }
+
+        @Override
+        public double getBytesPerSecond() {
+            return getRate(Counter.BYTES);
+        }
+
+        @Override
+        public double getCandidatesPerSecond() {
+            return getRate(Counter.CANDIDATES);
+        }
+
+        @Override
+        public double getWordsPerSecond() {
+            return getRate(Counter.WORDS);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package jevm.nutshell.metrics;
+
+/**
+ * Metrics as JMX attributes, times are nanoseconds summed over all threads and rates are
+ * per second of the time of the stage counted, as in Metrics
+ */
+public interface MetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Set all times and counts to 0
+     */
+    void reset();
+
+    /**
+     * Same table as Metrics.summary
+     * @return
+     */
+    String getSummary();
+
+    long getParseNanos();
+
+    long getCandidatesNanos();
+
+    long getGraphNanos();
+
+    long getScoringNanos();
+
+    long getSelectionNanos();
+
+    long getBytes();
+
+    long getSentences();
+
+    long getCandidates();
+
+    long getWords();
+
+    long getEdges();
+
+    double getBytesPerSecond();
+
+    double getCandidatesPerSecond();
+
+    double getWordsPerSecond();
+}
@@ -0,0 +1,77 @@
+package jevm.nutshell.output;
+
+import jevm.nutshell.data.ScoredWord;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * One JSON object per line, strings are escaped as they are written with the same escapes
+ * as json-simple instead of building the objects first
+ */
+class JsonLinesResultWriter extends ResultWriter {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    JsonLinesResultWriter(TextOutput out) {
+        super(out);
+    }
+
+    @Override
+    public void write(Result result) throws IOException {
+        out.append("{\"file\": ");
+        appendString(result.name);
+        out.append(", \"millis\": ").append(String.format(Locale.ROOT, "%.3f", result.millis));
+        if (result.error != null) {
+            out.append(", \"error\": ");
+            appendString(result.error);
+        } else if (result.keywords != null) {
+            out.append(", \"keywords\": [");
+            for (int i = 0; i < result.keywords.size(); i++) {
+                ScoredWord sw = result.keywords.get(i);
+                if (i > 0) out.append(", ");
+                out.append("{\"word\": ");
+                appendString(sw.word);
+                out.append(", \"score\": ");
+                /* JSON has no NaN nor infinity */
+                if (Double.isNaN(sw.score) || Double.isInfinite(sw.score)) {
+                    out.append("null");
+                } else {
+                    out.append(sw.score);
+                }
+                out.append('}');
+            }
+            out.append(']');
+        } else {
+            out.append(", \"abstract\": ");
+            appendString(result.text);
+        }
+        out.append("}\n");
+    }
+
+    /* quoted string, same escapes as JSONValue.escape */
+    private void appendString(String s) throws IOException {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\b': out.append("\\b"); break;
+                case '\f': out.append("\\f"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                case '/': out.append("\\/"); break;
+                default:
+                    if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF')) {
+                        out.append("\\u").append(HEX_DIGITS[c >> 12]).append(HEX_DIGITS[(c >> 8) & 0xF])
+                                .append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,43 @@
+package jevm.nutshell.output;
+
+import jevm.nutshell.data.ScoredWord;
+
+import java.util.List;
+
+/**
+ * Result of analyzing one document: keywords, or the text of an abstract, or an error
+ */
+public class Result {
+
+    public String name;
+    public double millis;
+    public List<ScoredWord> keywords;
+    public String text;
+    public String error;
+
+    public Result(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Result with keywords and no name
+     * @param keywords
+     * @return
+     */
+    public static Result of(List<ScoredWord> keywords) {
+        Result result = new Result("");
+        result.keywords = keywords;
+        return result;
+    }
+
+    /**
+     * Result with the text of an abstract and no name
+     * @param text
+     * @return
+     */
+    public static Result of(String text) {
+        Result result = new Result("");
+        result.text = text;
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package jevm.nutshell.output;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes results to a TextOutput in one format, one result after the other.  New formats
+ * are added by extending it, the ones in Format are created with create:
+ * <pre>
+ * TEXT   one "word score" line per keyword, same as ScoredWord.toString, or the abstract
+ * TSV    name, milliseconds, then word and score columns or the text abstract
+ * JSONL  {"file": ..., "millis": ..., "keywords": [{"word": ..., "score": ...}, ...]}
+ *        or "abstract": ... for text abstracts and "error": ... if the document failed
+ * </pre>
+ */
+public abstract class ResultWriter implements Closeable, Flushable {
+
+    public enum Format { TEXT, TSV, JSONL }
+
+    protected final TextOutput out;
+
+    protected ResultWriter(TextOutput out) {
+        this.out = out;
+    }
+
+    /**
+     * @param format
+     * @param out
+     * @return
+     */
+    public static ResultWriter create(Format format, TextOutput out) {
+        switch (format) {
+            case TSV:
+                return new TsvResultWriter(out);
+            case JSONL:
+                return new JsonLinesResultWriter(out);
+            default:
+                return new TextResultWriter(out);
+        }
+    }
+
+    /**
+     * Append a result, written to the underlying writer when the buffer is full or flushed
+     * @param result
+     * @throws IOException
+     */
+    public abstract void write(Result result) throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
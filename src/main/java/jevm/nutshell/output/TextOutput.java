@@ -0,0 +1,118 @@
+package jevm.nutshell.output;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Large buffer of chars in front of a Writer, not synchronized and only flushed when full
+ * or asked to, unlike System.out.println.  Numbers are appended as chars straight into the
+ * buffer, with the same text as String.valueOf, without creating a String for each one
+ */
+public final class TextOutput implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final char[] buffer;
+    private int position = 0;
+    private final StringBuilder number = new StringBuilder(32);  // digits of the last number
+
+    public TextOutput(Writer writer) {
+        this(writer, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param writer unbuffered writer, chars are written to it in blocks of bufferSize
+     * @param bufferSize
+     */
+    public TextOutput(Writer writer, int bufferSize) {
+        if (bufferSize < 1) throw new IllegalArgumentException("Invalid buffer size " + bufferSize);
+        this.writer = writer;
+        this.buffer = new char[bufferSize];
+    }
+
+    public TextOutput append(char c) throws IOException {
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = c;
+        return this;
+    }
+
+    public TextOutput append(String s) throws IOException {
+        int length = s.length();
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length > buffer.length) {
+                writer.write(s);
+                return this;
+            }
+        }
+        s.getChars(0, length, buffer, position);
+        position += length;
+        return this;
+    }
+
+    public TextOutput append(int i) throws IOException {
+        number.setLength(0);
+        return appendNumber(number.append(i));
+    }
+
+    public TextOutput append(long l) throws IOException {
+        number.setLength(0);
+        return appendNumber(number.append(l));
+    }
+
+    /**
+     * Same text as Double.toString
+     * @param d
+     * @return
+     * @throws IOException
+     */
+    public TextOutput append(double d) throws IOException {
+        number.setLength(0);
+        return appendNumber(number.append(d));
+    }
+
+    private TextOutput appendNumber(StringBuilder digits) throws IOException {
+        int length = digits.length();
+        if (length > buffer.length - position) flushBuffer();
+        if (length > buffer.length) {
+            writer.append(digits);
+            return this;
+        }
+        digits.getChars(0, length, buffer, position);
+        position += length;
+        return this;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Write the buffer and flush the writer
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    /**
+     * Write the buffer and close the writer
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package jevm.nutshell.output;
+
+import jevm.nutshell.data.ScoredWord;
+
+import java.io.IOException;
+
+/**
+ * Plain text as printed by the command line, name and time are not written
+ */
+class TextResultWriter extends ResultWriter {
+
+    TextResultWriter(TextOutput out) {
+        super(out);
+    }
+
+    @Override
+    public void write(Result result) throws IOException {
+        if (result.error != null) {
+            out.append(result.error).append('\n');
+        } else if (result.keywords != null) {
+            for (ScoredWord sw : result.keywords) {
+                out.append(sw.word).append(' ').append(sw.score).append('\n');
+            }
+        } else {
+            out.append(result.text).append('\n');
+        }
+    }
+}
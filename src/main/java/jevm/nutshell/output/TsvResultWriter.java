@@ -0,0 +1,44 @@
+package jevm.nutshell.output;
+
+import jevm.nutshell.data.ScoredWord;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * One line of tab separated values per result
+ */
+class TsvResultWriter extends ResultWriter {
+
+    TsvResultWriter(TextOutput out) {
+        super(out);
+    }
+
+    @Override
+    public void write(Result result) throws IOException {
+        appendField(result.name);
+        out.append('\t').append(String.format(Locale.ROOT, "%.3f", result.millis));
+        if (result.error != null) {
+            out.append("\terror\t");
+            appendField(result.error);
+        } else if (result.keywords != null) {
+            for (ScoredWord sw : result.keywords) {
+                out.append('\t');
+                appendField(sw.word);
+                out.append('\t').append(sw.score);
+            }
+        } else {
+            out.append('\t');
+            appendField(result.text);
+        }
+        out.append('\n');
+    }
+
+    /* tabs and newlines would break the record */
+    private void appendField(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            out.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+}
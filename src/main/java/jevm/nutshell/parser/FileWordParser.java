@@ -1,18 +1,40 @@
 package jevm.nutshell.parser;
 
+import jevm.nutshell.metrics.Metrics;
+
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.*;
 
-public class FileWordParser implements WordParser {
+public class FileWordParser implements WordParser, Closeable {
 
-    public static String SENTENCE_DELIMITERS = "[.,();`\":?!]";
+    public static String SENTENCE_DELIMITERS = Tokenizer.SENTENCE_DELIMITERS;
 
     private Scanner scanner;
 
     public FileWordParser(File file) throws FileNotFoundException {
         scanner = new Scanner(file);
-        scanner.useDelimiter(SENTENCE_DELIMITERS);
+        scanner.useDelimiter(Tokenizer.pattern(SENTENCE_DELIMITERS));
+        Metrics.count(Metrics.Counter.BYTES, file.length());
+    }
+
+    public FileWordParser(File file, Charset charset) throws FileNotFoundException {
+        scanner = new Scanner(file, charset.name());
+        scanner.useDelimiter(Tokenizer.pattern(SENTENCE_DELIMITERS));
+        Metrics.count(Metrics.Counter.BYTES, file.length());
+    }
+
+    /**
+     * Parse text read from a stream, e.g. a request body
+     * @param in
+     * @param charset
+     */
+    public FileWordParser(InputStream in, Charset charset) {
+        scanner = new Scanner(in, charset.name());
+        scanner.useDelimiter(Tokenizer.pattern(SENTENCE_DELIMITERS));
     }
 
     @Override
@@ -24,7 +46,7 @@ public class FileWordParser implements WordParser {
     public String nextLine() {
         String s = scanner.next();
         s = s.trim();
-        s = s.replaceAll("^[^a-zA-Z]+|[^a-zA-Z]+$", "");
+        s = Tokenizer.trimToLetters(s);
         s = s.replace('\n', ' '); //eliminate intermediate newline
        // s = s.toLowerCase();
         if (s.length() == 0 && scanner.hasNext()) {
@@ -35,11 +57,7 @@ public class FileWordParser implements WordParser {
     }
 
     @Override
-    public List<String> getLines() {
-        List<String> output = new LinkedList<>();
-        while(hasNext()) {
-            output.add(nextLine());
-        }
-        return output;
+    public void close() {
+        scanner.close();
     }
 }
@@ -0,0 +1,179 @@
+package jevm.nutshell.parser;
+
+import jevm.nutshell.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Parser with the same output as FileWordParser that maps the file into memory in windows
+ * and decodes it incrementally into a char buffer, sentences are split on
+ * FileWordParser.SENTENCE_DELIMITERS and trimmed to letters by scanning the buffer
+ * instead of using Scanner and regular expressions.
+ * Text ends at the first byte sequence that is not valid in the charset, where Scanner
+ * also drops the chars it had decoded in the same read
+ */
+public class MappedFileWordParser implements WordParser, Closeable {
+
+    private static final int WINDOW_SIZE = 1 << 26;  // bytes mapped at once
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final CharsetDecoder decoder;
+    private ByteBuffer window = ByteBuffer.allocate(0);
+    private long windowEnd = 0;
+    private boolean endOfText = false;
+
+    /* decoded chars, [start, limit) are still needed and pos is where the next token begins */
+    private char[] buf = new char[INITIAL_BUFFER_SIZE];
+    private int start = 0;
+    private int limit = 0;
+    private int pos = 0;
+
+    /* bounds of the last token read in buf */
+    private int tokenStart, tokenEnd;
+
+    /**
+     * Parse a file in the default charset, same as FileWordParser
+     * @param file
+     * @throws IOException
+     */
+    public MappedFileWordParser(File file) throws IOException {
+        this(file, Charset.defaultCharset());
+    }
+
+    public MappedFileWordParser(File file, Charset charset) throws IOException {
+        channel = new RandomAccessFile(file, "r").getChannel();
+        fileSize = channel.size();
+        decoder = charset.newDecoder();
+        Metrics.count(Metrics.Counter.BYTES, fileSize);
+    }
+
+    /**
+     * Decode more chars after limit, dropping the ones before start
+     * @return false if there is no more text
+     */
+    private boolean fill() {
+        if (start > 0) {
+            System.arraycopy(buf, start, buf, 0, limit - start);
+            limit -= start;
+            pos -= start;
+            tokenStart -= start;
+            start = 0;
+        }
+        if (limit > buf.length / 2) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+
+        CharBuffer out = CharBuffer.wrap(buf, limit, buf.length - limit);
+        try {
+            while (!endOfText && out.position() == limit) {
+                boolean isLastWindow = windowEnd == fileSize;
+                CoderResult result = decoder.decode(window, out, isLastWindow);
+                if (result.isError()) {
+                    endOfText = true;
+                } else if (result.isUnderflow()) {
+                    if (isLastWindow) {
+                        decoder.flush(out);
+                        endOfText = true;
+                    } else {
+                        /* next window starts at the bytes of a char split by this one */
+                        long position = windowEnd - window.remaining();
+                        long size = Math.min(WINDOW_SIZE, fileSize - position);
+                        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                        windowEnd = position + size;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int decoded = out.position() - limit;
+        limit = out.position();
+        return decoded > 0;
+    }
+
+    /**
+     * Make sure char i is decoded, i may move if chars are dropped from the buffer
+     * @return false if text ends before i
+     */
+    private boolean isAvailable(int i) {
+        int offset = i - start;
+        while (start + offset >= limit) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        /* same as Scanner, a single delimiter is skipped before a token */
+        start = pos;
+        if (!isAvailable(pos)) return false;
+        return !Tokenizer.isSentenceDelimiter(buf[pos]) || isAvailable(pos + 1);
+    }
+
+    /**
+     * Read the next token into tokenStart, tokenEnd
+     * @return false if there are no more tokens
+     */
+    private boolean nextToken() {
+        if (!hasNext()) return false;
+        if (Tokenizer.isSentenceDelimiter(buf[pos])) pos++;
+
+        start = pos;
+        tokenStart = pos;
+        int i = pos;
+        while (true) {
+            if (i >= limit) {
+                int offset = i - start;
+                boolean isFilled = fill();
+                i = start + offset;
+                if (!isFilled) break;
+            }
+            if (Tokenizer.isSentenceDelimiter(buf[i])) break;
+            i++;
+        }
+        tokenEnd = i;
+        pos = i;  // delimiter is skipped by the next token
+        return true;
+    }
+
+    /**
+     * Token from its first to its last letter, with newlines replaced by spaces
+     */
+    private String cleanToken() {
+        int from = tokenStart;
+        int to = tokenEnd;
+        while (from < to && !Tokenizer.isLetter(buf[from])) from++;
+        while (to > from && !Tokenizer.isLetter(buf[to - 1])) to--;
+        return new String(buf, from, to - from).replace('\n', ' ');
+    }
+
+    @Override
+    public String nextLine() {
+        while (true) {
+            if (!nextToken()) throw new NoSuchElementException();
+            String s = cleanToken();
+            if (s.length() > 0 || !hasNext()) return s;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
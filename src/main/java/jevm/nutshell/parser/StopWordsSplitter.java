@@ -0,0 +1,167 @@
+package jevm.nutshell.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Split text at stop words in a single pass.  A split point is a stop word, or a run of
+ * stop words written together, delimited by word boundaries.
+ * Produces the same pieces as String.split with the regex \b(w1|w2|...)+\b built from the
+ * stop words list (alternatives tried in list order), but stop words are kept in a trie so
+ * time is linear to the input regardless of the size of the list.
+ */
+public class StopWordsSplitter {
+
+    private static final int FAIL = -1;
+
+    private final TrieNode root = new TrieNode();
+    private int maxLength = 0;
+
+    /**
+     * Trie node, order is the position of the word ending here in the stop words list
+     */
+    private static class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int order = -1;
+
+        TrieNode child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+
+        TrieNode addChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            i = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            TrieNode[] newChildren = new TrieNode[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, keys.length - i);
+            newKeys[i] = c;
+            newChildren[i] = new TrieNode();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[i];
+        }
+    }
+
+    /**
+     * @param stopWords stop words, matched literally and case sensitive
+     */
+    public StopWordsSplitter(List<String> stopWords) {
+        int order = 0;
+        for (String stopWord : stopWords) {
+            if (stopWord.length() > 0) {
+                TrieNode node = root;
+                for (int i = 0; i < stopWord.length(); i++) {
+                    node = node.addChild(stopWord.charAt(i));
+                }
+                if (node.order < 0) node.order = order; // duplicates keep first position
+                maxLength = Math.max(maxLength, stopWord.length());
+            }
+            order++;
+        }
+    }
+
+    /**
+     * Split a string at stop words
+     * @param s
+     * @return pieces between stop words, may be empty or contain only whitespace
+     */
+    public List<String> split(String s) {
+        List<String> output = new ArrayList<>();
+        int n = s.length();
+        int[] matchEnd = findMatches(s);
+
+        int last = 0;
+        int p = 0;
+        while (p < n) {
+            if (matchEnd[p] != FAIL && isBoundary(s, p)) {
+                output.add(s.substring(last, p));
+                last = matchEnd[p];
+                p = last;
+            } else {
+                p++;
+            }
+        }
+
+        if (output.isEmpty()) {
+            output.add(s);
+        } else {
+            output.add(s.substring(last));
+        }
+        return output;
+    }
+
+    /**
+     * For each position the end of a run of stop words starting there, following the same
+     * order a backtracking regex would try: alternatives in list order, longest run first,
+     * and the run must end at a word boundary.  Filled from right to left so each
+     * position is solved once.
+     * @param s
+     * @return end index of the run starting at each position or FAIL
+     */
+    private int[] findMatches(String s) {
+        int n = s.length();
+        int[] matchEnd = new int[n + 1];
+        int[] orders = new int[maxLength + 1];
+        int[] lengths = new int[maxLength + 1];
+
+        matchEnd[n] = FAIL;
+        for (int p = n - 1; p >= 0; p--) {
+            /* collect stop words starting at p sorted by list order */
+            int count = 0;
+            TrieNode node = root;
+            for (int i = p; i < n && node != null; i++) {
+                node = node.child(s.charAt(i));
+                if (node != null && node.order >= 0) {
+                    int j = count++;
+                    while (j > 0 && orders[j - 1] > node.order) {
+                        orders[j] = orders[j - 1];
+                        lengths[j] = lengths[j - 1];
+                        j--;
+                    }
+                    orders[j] = node.order;
+                    lengths[j] = i + 1 - p;
+                }
+            }
+
+            matchEnd[p] = FAIL;
+            for (int k = 0; k < count; k++) {
+                int end = p + lengths[k];
+                /* greedy: try to continue the run, otherwise stop at a boundary */
+                int runEnd = matchEnd[end] != FAIL ? matchEnd[end] : (isBoundary(s, end) ? end : FAIL);
+                if (runEnd != FAIL) {
+                    matchEnd[p] = runEnd;
+                    break;
+                }
+            }
+        }
+        return matchEnd;
+    }
+
+    /**
+     * Word boundary with the same definition as java.util.regex \b
+     */
+    private static boolean isBoundary(String s, int i) {
+        boolean left = i > 0 && isWordChar(s, i - 1, Character.codePointBefore(s, i));
+        boolean right = i < s.length() && isWordChar(s, i, Character.codePointAt(s, i));
+        return left ^ right;
+    }
+
+    private static boolean isWordChar(String s, int i, int ch) {
+        if (ch == '_' || Character.isLetterOrDigit(ch)) return true;
+        if (Character.getType(ch) != Character.NON_SPACING_MARK) return false;
+        /* non spacing marks are part of a word when attached to a base character */
+        for (int x = i; x >= 0; x--) {
+            int c = Character.codePointAt(s, x);
+            if (Character.isLetterOrDigit(c)) return true;
+            if (Character.getType(c) != Character.NON_SPACING_MARK) return false;
+        }
+        return false;
+    }
+}
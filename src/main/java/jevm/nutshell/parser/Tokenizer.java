@@ -0,0 +1,144 @@
+package jevm.nutshell.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Splitting and trimming shared by parsers, graphs and analyzer.  Regular expressions
+ * are compiled once and cached, and the delimiters used on every word, whitespace and
+ * single chars, are split by scanning the string instead of running a regex.  Results
+ * are always the same as String.split and String.replaceAll with the same regex
+ */
+public final class Tokenizer {
+
+    /* regex of the whitespace between words, any single char of \s */
+    public static final String WHITESPACE = "\\s";
+    /* regex of the chars that end a sentence */
+    public static final String SENTENCE_DELIMITERS = "[.,();`\":?!]";
+
+    private static final String REGEX_META_CHARS = ".$|()[{^?*+\\";
+    private static final String[] NO_TOKENS = new String[0];
+    private static final ConcurrentHashMap<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Compiled pattern of a regex, compiled only the first time it is asked for
+     * @param regex
+     * @return
+     */
+    public static Pattern pattern(String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = patterns.computeIfAbsent(regex, Pattern::compile);
+        }
+        return pattern;
+    }
+
+    /**
+     * Same as s.split(regex), without a regex for WHITESPACE and single chars
+     * @param s
+     * @param regex
+     * @return
+     */
+    public static String[] split(String s, String regex) {
+        if (regex.equals(WHITESPACE)) return splitWhitespace(s);
+        if (regex.length() == 1 && REGEX_META_CHARS.indexOf(regex.charAt(0)) < 0) {
+            return split(s, regex.charAt(0));
+        }
+        return pattern(regex).split(s);
+    }
+
+    /**
+     * Same as s.split("\\s")
+     * @param s
+     * @return
+     */
+    public static String[] splitWhitespace(String s) {
+        List<String> tokens = null;
+        int from = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (isWhitespace(s.charAt(i))) {
+                if (tokens == null) tokens = new ArrayList<>();
+                tokens.add(s.substring(from, i));
+                from = i + 1;
+            }
+        }
+        return toArray(s, tokens, from);
+    }
+
+    /**
+     * Same as s.split of a regex matching only the delimiter char
+     * @param s
+     * @param delimiter
+     * @return
+     */
+    public static String[] split(String s, char delimiter) {
+        List<String> tokens = null;
+        int from = 0;
+        for (int i = s.indexOf(delimiter); i >= 0; i = s.indexOf(delimiter, from)) {
+            if (tokens == null) tokens = new ArrayList<>();
+            tokens.add(s.substring(from, i));
+            from = i + 1;
+        }
+        return toArray(s, tokens, from);
+    }
+
+    /* tokens with the last one, without trailing empty tokens as String.split */
+    private static String[] toArray(String s, List<String> tokens, int from) {
+        if (tokens == null) return new String[]{s};
+        tokens.add(s.substring(from));
+        int size = tokens.size();
+        while (size > 0 && tokens.get(size - 1).isEmpty()) size--;
+        return size == 0 ? NO_TOKENS : tokens.subList(0, size).toArray(new String[size]);
+    }
+
+    /**
+     * Same as s.replaceAll("^[^a-zA-Z]+|[^a-zA-Z]+$", ""), s without leading nor
+     * trailing chars other than ASCII letters
+     * @param s
+     * @return
+     */
+    public static String trimToLetters(String s) {
+        int from = 0;
+        int to = s.length();
+        while (from < to && !isLetter(s.charAt(from))) from++;
+        while (to > from && !isLetter(s.charAt(to - 1))) to--;
+        return s.substring(from, to);
+    }
+
+    /**
+     * Char matched by WHITESPACE
+     * @param c
+     * @return
+     */
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * Char matched by SENTENCE_DELIMITERS
+     * @param c
+     * @return
+     */
+    public static boolean isSentenceDelimiter(char c) {
+        switch (c) {
+            case '.': case ',': case '(': case ')': case ';': case '`': case '"': case ':': case '?': case '!':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * ASCII letter, the only chars kept at both ends of a sentence
+     * @param c
+     * @return
+     */
+    public static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
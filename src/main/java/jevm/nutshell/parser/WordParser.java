@@ -1,9 +1,39 @@
 package jevm.nutshell.parser;
 
+import jevm.nutshell.metrics.Metrics;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface WordParser {
     public boolean hasNext();
     public String nextLine();
-    public List<String> getLines();
+
+    /**
+     * Read all remaining lines into a list
+     * @return
+     */
+    public default List<String> getLines() {
+        List<String> output = new ArrayList<>();
+        forEachLine(output::add);
+        return output;
+    }
+
+    /**
+     * Pass each remaining line to consumer as it is parsed, without keeping them.  Parsing
+     * is timed without the time taken by consumer
+     * @param consumer
+     */
+    public default void forEachLine(Consumer<String> consumer) {
+        long start = Metrics.start();
+        while (hasNext()) {
+            String line = nextLine();
+            Metrics.stop(Metrics.Stage.PARSE, start);
+            Metrics.count(Metrics.Counter.SENTENCES, 1);
+            consumer.accept(line);
+            start = Metrics.start();
+        }
+        Metrics.stop(Metrics.Stage.PARSE, start);
+    }
 }
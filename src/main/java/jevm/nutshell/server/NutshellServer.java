@@ -0,0 +1,159 @@
+package jevm.nutshell.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.output.Result;
+import jevm.nutshell.output.ResultWriter;
+import jevm.nutshell.output.TextOutput;
+import jevm.nutshell.parser.FileWordParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP service that analyzes texts against stop words and corpus loaded once.
+ * Each endpoint takes the text as the body of a POST request and the number of results
+ * in query parameter n, output is the same as the command line:
+ * <pre>
+ * /keywords          multi-word keywords (-om)
+ * /keywords/single   single-word keywords (-os)
+ * /abstract          abstract lines (-oa)
+ * /abstract/text     text abstract (-oat)
+ * </pre>
+ * Requests are served concurrently, each one by a new analyzer sharing the corpus of
+ * the analyzer supplied to the server
+ */
+public class NutshellServer {
+
+    public static final int DEFAULT_N = 10;
+
+    private final TextAnalyzer prototype;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param prototype analyzer with the corpus, if any, must not change while serving
+     * @param address address to listen on, port 0 picks a free port
+     * @param threads number of requests served at the same time
+     * @throws IOException if address can not be bound
+     */
+    public NutshellServer(TextAnalyzer prototype, InetSocketAddress address, int threads) throws IOException {
+        this.prototype = prototype;
+        server = HttpServer.create(address, 0);
+        server.createContext("/keywords", exchange -> handle(exchange, "multi"));
+        server.createContext("/keywords/single", exchange -> handle(exchange, "single"));
+        server.createContext("/abstract", exchange -> handle(exchange, "abstract"));
+        server.createContext("/abstract/text", exchange -> handle(exchange, "abstractText"));
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests and wait for a second for the ones in progress
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Port the server listens on
+     * @return
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, String analysisKind) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                send(exchange, 404, "Not found\n");
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "POST the text to analyze\n");
+                return;
+            }
+
+            int n;
+            try {
+                n = getN(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, "Invalid n\n");
+                return;
+            }
+
+            TextAnalyzer analyzer = new TextAnalyzer(prototype);
+            analyzer.setRetainLines(analysisKind.startsWith("abstract"));
+            analyzer.setRetainCandidates(analysisKind.equals("multi"));
+            try (FileWordParser parser = new FileWordParser(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                analyzer.addText(parser);
+            }
+
+            send(exchange, 200, analyze(analyzer, analysisKind, n));
+        } catch (RuntimeException e) {
+            send(exchange, 500, e + "\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String analyze(TextAnalyzer analyzer, String analysisKind, int n) throws IOException {
+        Result result;
+        switch (analysisKind) {
+            case "single":
+                result = Result.of(analyzer.getKeyWordsSingle(n));
+                break;
+            case "multi":
+                result = Result.of(analyzer.getKeywords(n));
+                break;
+            case "abstract":
+                result = Result.of(analyzer.getAbstract(n));
+                break;
+            default:
+                result = Result.of(analyzer.getTextAbstract(n));
+        }
+
+        StringWriter body = new StringWriter();
+        ResultWriter writer = ResultWriter.create(ResultWriter.Format.TEXT, new TextOutput(body));
+        writer.write(result);
+        writer.flush();
+        return body.toString();
+    }
+
+    /**
+     * Value of query parameter n, DEFAULT_N if it is missing
+     */
+    private static int getN(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("n=")) {
+                    int n = Integer.parseInt(parameter.substring(2));
+                    if (n < 0) throw new IllegalArgumentException();
+                    return n;
+                }
+            }
+        }
+        return DEFAULT_N;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);  // 0 would be chunked
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
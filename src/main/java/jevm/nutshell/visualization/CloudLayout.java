@@ -0,0 +1,191 @@
+package jevm.nutshell.visualization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Word cloud layout computed ahead of time, same placement as d3-cloud: words from the
+ * biggest down start near the centre and move along an archimedean spiral until their box
+ * does not collide with the words already placed, which are kept in a bitmap of the
+ * canvas.  Start points and rotations come from a seeded Random so the same words always
+ * give the same cloud.  Layouts do not share state and may be computed in parallel
+ */
+public class CloudLayout {
+
+    public static final int DEFAULT_WIDTH = 1024;
+    public static final int DEFAULT_HEIGHT = 800;
+    public static final long DEFAULT_SEED = 42L;
+
+    /* box of a word relative to its baseline, in font sizes */
+    private static final double CHAR_WIDTH = 0.6;
+    private static final double ASCENT = 0.8;
+    private static final double DESCENT = 0.2;
+    private static final int PADDING = 1;
+
+    /**
+     * A word placed in the canvas: text drawn centred on (x, y) baseline and rotated by
+     * rotate degrees around that point, all within the box left, top, right, bottom
+     */
+    public static class PlacedWord {
+        public final String text;
+        public final int size;
+        public final int x;
+        public final int y;
+        public final int rotate;
+        public final int left;
+        public final int top;
+        public final int right;
+        public final int bottom;
+
+        PlacedWord(String text, int size, int x, int y, int rotate, int[] box) {
+            this.text = text;
+            this.size = size;
+            this.x = x;
+            this.y = y;
+            this.rotate = rotate;
+            this.left = box[0];
+            this.top = box[1];
+            this.right = box[2];
+            this.bottom = box[3];
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final long seed;
+
+    public CloudLayout() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT, DEFAULT_SEED);
+    }
+
+    /**
+     * @param width canvas width in pixels
+     * @param height canvas height in pixels
+     * @param seed seed of start points and rotations
+     */
+    public CloudLayout(int width, int height, long seed) {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Invalid canvas " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Place words by descending font size, words that do not fit in the canvas are left out
+     * @param sizes font size by word
+     * @return placed words in the order they were placed
+     */
+    public List<PlacedWord> layout(Map<String, Integer> sizes) {
+        List<Map.Entry<String, Integer>> words = new ArrayList<>(sizes.entrySet());
+        /* biggest first, ties by word so the order does not depend on the map */
+        words.sort((a, b) -> {
+            int diff = Integer.compare(b.getValue(), a.getValue());
+            return diff != 0 ? diff : a.getKey().compareTo(b.getKey());
+        });
+
+        Random random = new Random(seed);
+        Bitmap bitmap = new Bitmap(width, height);
+        List<PlacedWord> placed = new ArrayList<>(words.size());
+        int[] box = new int[4];
+
+        for (Map.Entry<String, Integer> word : words) {
+            String text = word.getKey();
+            int size = word.getValue();
+            int rotate = random.nextInt(2) * 90;
+            int startX = (int) (width * (random.nextDouble() + 0.5)) >> 1;
+            int startY = (int) (height * (random.nextDouble() + 0.5)) >> 1;
+            int dt = random.nextBoolean() ? 1 : -1;
+
+            double ratio = (double) width / height;
+            double maxDelta = Math.sqrt((double) width * width + (double) height * height);
+            for (int t = 0; ; t += dt) {
+                double r = t * 0.1;
+                double dx = ratio * r * Math.cos(r);
+                double dy = r * Math.sin(r);
+                if (Math.min(Math.abs(dx), Math.abs(dy)) >= maxDelta) break;
+
+                int x = startX + (int) dx;
+                int y = startY + (int) dy;
+                box(text, size, x, y, rotate, box);
+                if (box[0] < 0 || box[1] < 0 || box[2] > width || box[3] > height) continue;
+                if (bitmap.intersects(box)) continue;
+
+                bitmap.set(box);
+                placed.add(new PlacedWord(text, size, x, y, rotate, box));
+                break;
+            }
+        }
+        return Collections.unmodifiableList(placed);
+    }
+
+    /* box of a word, estimated from its length since fonts are not available to layout */
+    private static void box(String text, int size, int x, int y, int rotate, int[] box) {
+        int halfWidth = (int) Math.ceil(text.length() * size * CHAR_WIDTH / 2) + PADDING;
+        int ascent = (int) Math.ceil(size * ASCENT) + PADDING;
+        int descent = (int) Math.ceil(size * DESCENT) + PADDING;
+        if (rotate == 0) {
+            box[0] = x - halfWidth;
+            box[1] = y - ascent;
+            box[2] = x + halfWidth;
+            box[3] = y + descent;
+        } else {
+            /* rotated clockwise, ascent is to the right of the baseline */
+            box[0] = x - descent;
+            box[1] = y - halfWidth;
+            box[2] = x + ascent;
+            box[3] = y + halfWidth;
+        }
+    }
+
+    /**
+     * One bit per pixel, rows of 64 pixel words
+     */
+    private static class Bitmap {
+        private final long[] bits;
+        private final int wordsPerRow;
+
+        Bitmap(int width, int height) {
+            wordsPerRow = (width + 63) >>> 6;
+            bits = new long[wordsPerRow * height];
+        }
+
+        /* box is left, top inclusive and right, bottom exclusive */
+        boolean intersects(int[] box) {
+            for (int row = box[1]; row < box[3]; row++) {
+                int offset = row * wordsPerRow;
+                for (int w = box[0] >>> 6; w <= (box[2] - 1) >>> 6; w++) {
+                    if ((bits[offset + w] & mask(w, box[0], box[2])) != 0) return true;
+                }
+            }
+            return false;
+        }
+
+        void set(int[] box) {
+            for (int row = box[1]; row < box[3]; row++) {
+                int offset = row * wordsPerRow;
+                for (int w = box[0] >>> 6; w <= (box[2] - 1) >>> 6; w++) {
+                    bits[offset + w] |= mask(w, box[0], box[2]);
+                }
+            }
+        }
+
+        /* bits of word w for pixels from inclusive to exclusive */
+        private static long mask(int w, int from, int to) {
+            int first = Math.max(from - (w << 6), 0);
+            int last = Math.min(to - (w << 6), 64);
+            long high = last == 64 ? -1L : (1L << last) - 1;
+            return high & (-1L << first);
+        }
+    }
+}
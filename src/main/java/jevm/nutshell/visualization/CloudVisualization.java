@@ -1,14 +1,19 @@
 package jevm.nutshell.visualization;
 
 import jevm.nutshell.data.ScoredWord;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import jevm.nutshell.output.TextOutput;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Generate a html file with scored words datasets, each dataset becomes one cloud
+ * Generate a html file with scored words datasets, each dataset becomes one cloud laid out
+ * by CloudLayout and drawn as static SVG, so the page needs no scripts
  */
 public class CloudVisualization {
 
@@ -17,11 +22,19 @@ public class CloudVisualization {
 
     private int maxSize = DEFAULT_MAX_SIZE;
     private int minSize = DEFAULT_MIN_SIZE;
+    private CloudLayout layout = new CloudLayout();
+    private int threads = 1;
+
+    /* d3 category20 */
+    private static final String[] COLORS = {
+            "#1f77b4", "#aec7e8", "#ff7f0e", "#ffbb78", "#2ca02c", "#98df8a", "#d62728", "#ff9896",
+            "#9467bd", "#c5b0d5", "#8c564b", "#c49c94", "#e377c2", "#f7b6d2", "#7f7f7f", "#c7c7c7",
+            "#bcbd22", "#dbdb8d", "#17becf", "#9edae5"};
 
     private Map<String, Map<String, Integer>> normalizedData;
 
     public CloudVisualization() {
-        normalizedData = new HashMap<>();
+        normalizedData = new LinkedHashMap<>();
     }
 
     /**
@@ -54,76 +67,106 @@ public class CloudVisualization {
         return output;
     }
 
-    private String createJSONString(Map<String, Integer> dataMap) {
+    /**
+     * Create a word cloud as a html file with all the datasets previously added, clouds are
+     * laid out in parallel and streamed as static SVG in the order datasets were added
+     * @param filename output filename
+     * @throws FileNotFoundException
+     * @throws UncheckedIOException if the file can not be written
+     */
+    public void createWordCloud(String filename) throws FileNotFoundException {
+        List<String> dataNames = new ArrayList<>(normalizedData.keySet());
+        List<List<CloudLayout.PlacedWord>> clouds = layoutAll(dataNames);
+
+        try (TextOutput out = new TextOutput(new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8))) {
+            out.append("<!DOCTYPE html>\n")
+                    .append("<meta charset=\"utf-8\">\n")
+                    .append("<body>\n");
+            for (int i = 0; i < dataNames.size(); i++) {
+                out.append("<h2>");
+                appendEscaped(dataNames.get(i), out);
+                out.append("</h2>\n");
+                appendSvg(clouds.get(i), out);
+            }
+            out.append("</body>\n");
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        JSONArray list = new JSONArray();
+    private List<List<CloudLayout.PlacedWord>> layoutAll(List<String> dataNames) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(dataNames.size(), 1)));
+        try {
+            List<Future<List<CloudLayout.PlacedWord>>> futures = new ArrayList<>(dataNames.size());
+            for (String dataName : dataNames) {
+                Map<String, Integer> sizes = normalizedData.get(dataName);
+                futures.add(executor.submit(() -> layout.layout(sizes)));
+            }
+            List<List<CloudLayout.PlacedWord>> clouds = new ArrayList<>(dataNames.size());
+            for (Future<List<CloudLayout.PlacedWord>> future : futures) {
+                clouds.add(future.get());
+            }
+            return clouds;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Word cloud layout interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-        for (String word : dataMap.keySet()) {
-            JSONObject obj = new JSONObject();
-            Integer score = dataMap.get(word);
-            obj.put("text", word);
-            obj.put("size", score);
-            list.add(obj);
+    private void appendSvg(List<CloudLayout.PlacedWord> words, TextOutput out) throws IOException {
+        out.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(layout.getWidth())
+                .append("\" height=\"").append(layout.getHeight()).append("\">\n")
+                .append("<g font-family=\"Impact\" text-anchor=\"middle\">\n");
+        for (int i = 0; i < words.size(); i++) {
+            CloudLayout.PlacedWord w = words.get(i);
+            out.append("<text x=\"").append(w.x).append("\" y=\"").append(w.y)
+                    .append("\" font-size=\"").append(w.size).append("px\" fill=\"")
+                    .append(COLORS[i % COLORS.length]).append('"');
+            if (w.rotate != 0) {
+                out.append(" transform=\"rotate(").append(w.rotate).append(' ')
+                        .append(w.x).append(' ').append(w.y).append(")\"");
+            }
+            out.append('>');
+            appendEscaped(w.text, out);
+            out.append("</text>\n");
         }
+        out.append("</g>\n</svg>\n");
+    }
 
-        return list.toJSONString();
+    private static void appendEscaped(String s, TextOutput out) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&': out.append("&amp;"); break;
+                case '<': out.append("&lt;"); break;
+                case '>': out.append("&gt;"); break;
+                case '"': out.append("&quot;"); break;
+                default: out.append(c);
+            }
+        }
     }
 
+    /**
+     * Layout of the clouds, for another canvas size or seed
+     * @param layout
+     */
+    public void setLayout(CloudLayout layout) {
+        this.layout = layout;
+    }
 
     /**
-     * Create a word cloud as a html file with all the datasets previously added
-     * @param filename output filename
-     * @throws FileNotFoundException
+     * Number of clouds laid out at the same time
+     * @param threads
      */
-    public void createWordCloud(String filename) throws FileNotFoundException {
-        File f = new File(filename);
-        PrintWriter pw = new PrintWriter(f);
-
-        String html = "<!DOCTYPE html>\n" +
-                "<meta charset=\"utf-8\">\n" +
-                "<script src=\"https://cdnjs.cloudflare.com/ajax/libs/d3/3.5.17/d3.js\"></script>\n" +
-                "<script src=\"https://cdnjs.cloudflare.com/ajax/libs/d3-cloud/1.2.5/d3.layout.cloud.js\"></script>\n" +
-                "<body>\n" +
-                "<script>\n" +
-                "    var fill = d3.scale.category20();\n" +
-                "    function draw(words) {\n" +
-                "        d3.select(\"body\").append(\"svg\")\n" +
-                "            .attr(\"width\", 1024)\n" +
-                "            .attr(\"height\", 800)\n" +
-                "            .append(\"g\")\n" +
-                "            .attr(\"transform\", \"translate(514, 400)\")\n" +
-                "            .selectAll(\"text\")\n" +
-                "            .data(words)\n" +
-                "            .enter().append(\"text\")\n" +
-                "            .style(\"font-size\", function(d) { return d.size + \"px\"; })\n" +
-                "            .style(\"font-family\", \"Impact\")\n" +
-                "            .style(\"fill\", function(d, i) { return fill(i); })\n" +
-                "            .attr(\"text-anchor\", \"middle\")\n" +
-                "            .attr(\"transform\", function(d) {\n" +
-                "                return \"translate(\" + [d.x, d.y] + \")rotate(\" + d.rotate + \")\";\n" +
-                "            })\n" +
-                "            .text(function(d) { return d.text; });\n" +
-                "    }\n" +
-                "</script>\n";
-        pw.print(html);
-
-        for (String dataName : normalizedData.keySet()) {
-            String jsonData = createJSONString(normalizedData.get(dataName));
-            String htmlData =
-                    "<html><h2>"  + dataName + "</h2></html>\n" +
-                    "<script>\n" +
-                    "    d3.layout.cloud().size([1024, 800])\n" +
-                    "        .words("   + jsonData +    ")\n" +
-                    "        .rotate(function() { return ~~(Math.random() * 2) * 90; })\n" +
-                    "        .font(\"Impact\")\n" +
-                    "        .fontSize(function(d) { return d.size; })\n" +
-                    "        .on(\"end\", draw)\n" +
-                    "        .start();\n" +
-                    "\n" +
-                    "</script>\n";
-            pw.print(htmlData);
-        }
-        pw.close();
+    public void setThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Invalid threads " + threads);
+        this.threads = threads;
     }
 
     /**
@@ -0,0 +1,71 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApproximateWordsGraphTest {
+
+    @Test
+    void testCounterBounds() throws FileNotFoundException {
+        List<String> lines = new FileWordParser(new File("res/alice.txt")).getLines();
+        WordsGraph exact = new WordsGraph();
+        exact.addAll(lines);
+        ApproximateWordsGraph approximate = new ApproximateWordsGraph(256 << 10);
+        for (String line : lines) {
+            approximate.addString(line);
+        }
+        ApproximateWordsGraph merged = new ApproximateWordsGraph(256 << 10);
+        merged.merge(exact);
+
+        assertEquals(exact.getTotalFrequency(), approximate.getTotalFrequency());
+        assertEquals(exact.getTotalFrequency(), merged.getTotalFrequency());
+        for (ApproximateWordsGraph graph : new ApproximateWordsGraph[]{approximate, merged}) {
+            for (int id = 0; id < exact.getNumWords(); id++) {
+                int approximateId = graph.getWordId(exact.getWord(id));
+                assertTrue(approximateId >= 0);
+                assertTrue(graph.getFrequency(approximateId) >= exact.getFrequency(id));
+                assertTrue(graph.getWeightedInDegree(approximateId) >= exact.getWeightedInDegree(id));
+                assertTrue(graph.getWeightedOutDegree(approximateId) >= exact.getWeightedOutDegree(id));
+            }
+        }
+        assertTrue(approximate.getMemoryBytes() <= 256 << 10);
+    }
+
+    @Test
+    void testRankAgreement() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> text = new FileWordParser(new File("res/alice.txt")).getLines();
+        List<String> corpus = new FileWordParser(new File("res/gastby.txt")).getLines();
+
+        TextAnalyzer exact = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        exact.addText(text);
+        exact.addCorpus(corpus);
+        TextAnalyzer approximate = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        approximate.setApproximateCorpus(new ApproximateWordsGraph(1 << 20));
+        approximate.addText(text);
+        approximate.addCorpus(approximate.createShard(corpus));
+        assertNull(approximate.getCorpusView());
+
+        Set<String> exactTop = new HashSet<>();
+        for (ScoredWord sw : exact.getKeyWordsSingle(50)) {
+            exactTop.add(sw.word);
+        }
+        int agreed = 0;
+        for (ScoredWord sw : approximate.getKeyWordsSingle(50)) {
+            if (exactTop.contains(sw.word)) agreed++;
+        }
+        assertTrue(agreed >= 45, "top 50 agreement " + agreed);
+
+        assertThrows(IllegalStateException.class, () -> exact.setApproximateCorpus(new ApproximateWordsGraph(1 << 20)));
+    }
+}
@@ -0,0 +1,96 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.parser.FileWordParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentWordsGraphTest {
+
+    private static final int THREADS = 8;
+
+    /* run task on all threads at once */
+    private static void runConcurrently(Runnable task) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSameEdgeContention() throws Exception {
+        ConcurrentWordsGraph graph = new ConcurrentWordsGraph();
+        int times = 100000;
+        runConcurrently(() -> {
+            for (int i = 0; i < times; i++) {
+                graph.addEdge("hot", "word");
+                graph.addWord("word");
+            }
+        });
+
+        assertEquals(THREADS * times, graph.getEdgeWeight("hot", "word"));
+        assertEquals(THREADS * times, graph.getWordFreq("hot"));
+        assertEquals(THREADS * times, graph.getWordFreq("word"));
+        assertEquals(1, graph.getWordOutDegree("hot"));
+        assertEquals(1, graph.getWordInDegree("word"));
+        assertEquals(1, graph.getNumEdges());
+        assertEquals(2L * THREADS * times, graph.getTotalFrequency());
+    }
+
+    @Test
+    void testSameAsWordsGraph() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (String file : new String[] {"res/alice.txt", "res/old_man.txt"}) {
+            lines.addAll(new FileWordParser(new File(file)).getLines());
+        }
+
+        /* every thread adds all lines, in a different order to add new words and edges at once */
+        ConcurrentWordsGraph concurrent = new ConcurrentWordsGraph();
+        AtomicInteger thread = new AtomicInteger();
+        runConcurrently(() -> {
+            int first = thread.getAndIncrement() * lines.size() / THREADS;
+            for (int i = 0; i < lines.size(); i++) {
+                concurrent.addString(lines.get((first + i) % lines.size()));
+            }
+        });
+
+        WordsGraph sequential = new WordsGraph();
+        for (int t = 0; t < THREADS; t++) {
+            sequential.addAll(lines);
+        }
+        WordsGraph copy = concurrent.toWordsGraph();
+
+        assertEquals(sequential.getNumWords(), copy.getNumWords());
+        assertEquals(sequential.getNumEdges(), copy.getNumEdges());
+        assertEquals(sequential.numWeightedEdges, copy.numWeightedEdges);
+        assertEquals(sequential.getTotalFrequency(), copy.getTotalFrequency());
+        assertEquals(sequential.getAllWeightedEdges(), copy.getAllWeightedEdges());
+        for (int id = 0; id < sequential.getNumWords(); id++) {
+            int copyId = copy.getWordId(sequential.getWord(id));
+            assertEquals(sequential.frequency[id], copy.frequency[copyId]);
+            assertEquals(sequential.inDegree[id], copy.inDegree[copyId]);
+            assertEquals(sequential.outDegree[id], copy.outDegree[copyId]);
+            assertEquals(sequential.weightedInDegree[id], copy.weightedInDegree[copyId]);
+            assertEquals(sequential.weightedOutDegree[id], copy.weightedOutDegree[copyId]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.parser.FileWordParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentFrequencyTableTest {
+
+    private static final List<String> STOP_WORDS = Arrays.asList("the", "a", "of", "and");
+
+    private static Set<String> words(String... words) {
+        return new HashSet<>(Arrays.asList(words));
+    }
+
+    @Test
+    void testCounts() {
+        DocumentFrequencyTable table = new DocumentFrequencyTable();
+        table.addDocument(words("white", "rabbit", "queen"), 4);
+        table.addDocument(words("red", "queen"), 2);
+
+        assertEquals(2, table.getNumDocuments());
+        assertEquals(6, table.getTotalFrequency());
+        assertEquals(1, table.getDocumentFrequency("white"));
+        assertEquals(2, table.getDocumentFrequency("queen"));
+        assertEquals(0, table.getDocumentFrequency("knight"));
+
+        DocumentFrequencyTable other = new DocumentFrequencyTable();
+        other.addDocument(words("white", "knight"), 2);
+        DocumentFrequencyTable copy = new DocumentFrequencyTable(table);
+        assertEquals(table.getModCount(), copy.getModCount());
+        copy.merge(other);
+        assertTrue(copy.getModCount() > table.getModCount());
+        assertEquals(3, copy.getNumDocuments());
+        assertEquals(2, copy.getDocumentFrequency("white"));
+        assertEquals(1, copy.getDocumentFrequency("knight"));
+        assertEquals(5, copy.getNumWords());
+        /* original is not changed by its copy */
+        assertEquals(1, table.getDocumentFrequency("white"));
+        assertEquals(0, table.getDocumentFrequency("knight"));
+    }
+
+    @Test
+    void testAnalyzerWithoutCorpusGraph() {
+        List<String> text = Arrays.asList("the white rabbit ran", "the white rabbit and the queen");
+        TextAnalyzer analyzer = new TextAnalyzer(STOP_WORDS, ScoringMethod.TF_IDF);
+        analyzer.addText(text);
+        analyzer.addCorpus(Collections.singletonList("the queen of hearts"));
+        analyzer.addCorpus(analyzer.createShard(Arrays.asList("the red queen", "a white knight")));
+
+        assertNull(analyzer.getCorpusGraph());
+        assertNull(analyzer.getCorpusView());
+        assertEquals(2, analyzer.getDocumentFrequencies().getNumDocuments());
+        /* rabbit is in no document, queen in both */
+        assertEquals("rabbit", analyzer.getKeyWordsSingle(1).get(0).word);
+        assertEquals("queen", analyzer.getKeyWordsSingle(4).get(3).word);
+        assertThrows(IllegalStateException.class, () -> analyzer.addCorpus(new WordsGraph()));
+
+        /* copies share the table until they add to it */
+        TextAnalyzer copy = new TextAnalyzer(analyzer);
+        copy.addText(text);
+        assertEquals(analyzer.getKeyWordsSingle(5), copy.getKeyWordsSingle(5));
+        copy.addCorpus(Collections.singletonList("rabbit"));
+        assertEquals(3, copy.getDocumentFrequencies().getNumDocuments());
+        assertEquals(2, analyzer.getDocumentFrequencies().getNumDocuments());
+        assertNotEquals(analyzer.getKeyWordsSingle(5), copy.getKeyWordsSingle(5));
+    }
+
+    @Test
+    void testDocumentShards() throws FileNotFoundException {
+        File file = new File("res/text_test1.txt");
+        List<String> lines = new FileWordParser(file).getLines();
+        TextAnalyzer parsed = new TextAnalyzer(STOP_WORDS, ScoringMethod.TF_IDF);
+        TextShard shard = parsed.createShard(new FileWordParser(file), false);
+        assertNull(shard.graph);
+        parsed.addCorpus(shard);
+        parsed.addCorpus(new FileWordParser(file));
+
+        /* same counts as the words of full shards and graphs */
+        TextAnalyzer graphs = new TextAnalyzer(STOP_WORDS, ScoringMethod.TF_IDF);
+        graphs.addCorpus(graphs.createShard(lines));
+        graphs.addCorpus(lines);
+        WordsGraph graph = new WordsGraph();
+        graph.addAll(graphs.getKeywordCandidates(lines));
+        DocumentFrequencyTable documents = parsed.getDocumentFrequencies();
+        assertEquals(2, documents.getNumDocuments());
+        assertEquals(2 * graph.getTotalFrequency(), documents.getTotalFrequency());
+        assertEquals(graph.getNumWords(), documents.getNumWords());
+        for (int id = 0; id < graph.getNumWords(); id++) {
+            assertEquals(2, documents.getDocumentFrequency(graph.getWord(id)));
+        }
+        assertEquals(documents.getTotalFrequency(), graphs.getDocumentFrequencies().getTotalFrequency());
+        assertEquals(documents.getNumWords(), graphs.getDocumentFrequencies().getNumWords());
+        assertThrows(IllegalArgumentException.class, () -> parsed.addText(shard));
+    }
+}
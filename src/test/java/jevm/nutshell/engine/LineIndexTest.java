@@ -0,0 +1,65 @@
+package jevm.nutshell.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineIndexTest {
+
+    private static List<String> distinct(LineIndex index) {
+        List<String> lines = new ArrayList<>();
+        index.forEachDistinct(lines::add);
+        Collections.sort(lines);
+        return lines;
+    }
+
+    @Test
+    void testDistinctInTextOrder() {
+        LineIndex index = new LineIndex();
+        index.addAll(Arrays.asList("the cat", "a dog", "the cat", "some bird", "a dog"));
+
+        assertEquals(Arrays.asList("a dog", "some bird", "the cat"), distinct(index));
+        assertEquals(Arrays.asList("the cat", "a dog", "some bird"),
+                index.inTextOrder(Arrays.asList("some bird", "a dog", "the cat")));
+        assertEquals(Arrays.asList("the cat", "some bird"),
+                index.inTextOrder(Arrays.asList("some bird", "not a line", "the cat")));
+    }
+
+    @Test
+    void testRemove() {
+        LineIndex index = new LineIndex();
+        index.addAll(Arrays.asList("the cat", "a dog", "the cat", "some bird"));
+
+        /* next occurrence of the cat is now after a dog */
+        index.remove("the cat");
+        assertEquals(Arrays.asList("a dog", "the cat", "some bird"),
+                index.inTextOrder(Arrays.asList("the cat", "some bird", "a dog")));
+
+        index.remove("the cat");
+        assertEquals(Arrays.asList("a dog", "some bird"), distinct(index));
+        assertThrows(IllegalArgumentException.class, () -> index.remove("the cat"));
+
+        index.add("the cat");
+        assertEquals(Arrays.asList("a dog", "some bird", "the cat"),
+                index.inTextOrder(Arrays.asList("the cat", "some bird", "a dog")));
+    }
+
+    @Test
+    void testCompact() {
+        LineIndex index = new LineIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.add("line " + (i % 1000));
+        }
+        for (int i = 0; i < 2500; i++) {
+            index.remove("line " + (i % 1000));
+        }
+
+        /* lines 500 to 999 left once, from position 2500 of the original text */
+        List<String> distinct = distinct(index);
+        assertEquals(500, distinct.size());
+        assertEquals(Arrays.asList("line 500", "line 501", "line 999"),
+                index.inTextOrder(Arrays.asList("line 999", "line 501", "line 500")));
+    }
+}
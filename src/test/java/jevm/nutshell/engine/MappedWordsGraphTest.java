@@ -0,0 +1,119 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedWordsGraphTest {
+
+    @Test
+    void testSameAsHeapGraph() throws IOException {
+        WordsGraph graph = new WordsGraph();
+        graph.addAll(new FileWordParser(new File("res/alice.txt")).getLines());
+        graph.addString("na\u00efve caf\u00e9 \u65e5\u672c \ud83d\ude00 x");
+
+        File f = File.createTempFile("nutshell", ".snapshot");
+        f.deleteOnExit();
+        WordsGraphSnapshot.write(graph, f);
+        MappedWordsGraph mapped = new MappedWordsGraph(f);
+
+        assertEquals(graph.getNumWords(), mapped.getNumWords());
+        assertEquals(graph.getNumEdges(), mapped.getNumEdges());
+        assertEquals(graph.getTotalFrequency(), mapped.getTotalFrequency());
+        for (int id = 0; id < graph.getNumWords(); id++) {
+            String word = graph.getWord(id);
+            assertEquals(word, mapped.getWord(id));
+            assertEquals(id, mapped.getWordId(word));
+            assertEquals(graph.getFrequency(id), mapped.getFrequency(id));
+            assertEquals(graph.getInDegree(id), mapped.getInDegree(id));
+            assertEquals(graph.getOutDegree(id), mapped.getOutDegree(id));
+            assertEquals(graph.getWeightedInDegree(id), mapped.getWeightedInDegree(id));
+            assertEquals(graph.getWeightedOutDegree(id), mapped.getWeightedOutDegree(id));
+        }
+        graph.getAllWeightedEdges().forEach((edge, weight) ->
+                assertEquals(weight.intValue(), mapped.getEdgeWeight(edge.source, edge.destination)));
+        assertEquals(-1, mapped.getWordId("na\u00efv"));
+        assertEquals(-1, mapped.getWordId("notAWordInAlice"));
+        assertEquals(-1, mapped.getEdgeWeight("Alice", "notAWordInAlice"));
+        assertEquals(graph.getAllWeightedEdges(), mapped.toWordsGraph().getAllWeightedEdges());
+    }
+
+    @Test
+    void testVersion1() throws IOException {
+        WordsGraph graph = new WordsGraph();
+        graph.addString("the cat saw the dog");
+
+        /* version 1 layout, no padding nor index */
+        File f = File.createTempFile("nutshell", ".snapshot");
+        f.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(f))) {
+            out.writeInt(WordsGraphSnapshot.MAGIC);
+            out.writeInt(1);
+            out.writeInt(graph.getNumWords());
+            out.writeInt(graph.getNumEdges());
+            out.writeInt(graph.numWeightedEdges);
+            int offset = 0;
+            out.writeInt(offset);
+            for (int id = 0; id < graph.getNumWords(); id++) {
+                offset += graph.getWord(id).length();
+                out.writeInt(offset);
+            }
+            for (int id = 0; id < graph.getNumWords(); id++) {
+                out.write(graph.getWord(id).getBytes(StandardCharsets.UTF_8));
+            }
+            for (int[] values : new int[][]{graph.frequency, graph.inDegree, graph.outDegree,
+                    graph.weightedInDegree, graph.weightedOutDegree}) {
+                for (int id = 0; id < graph.getNumWords(); id++) {
+                    out.writeInt(values[id]);
+                }
+            }
+            /* the, cat, saw, dog: edges sorted by source then destination */
+            for (int[] values : new int[][]{{0, 0, 1, 2}, {1, 3, 2, 0}, {1, 1, 1, 1}}) {
+                for (int value : values) {
+                    out.writeInt(value);
+                }
+            }
+        }
+
+        MappedWordsGraph mapped = new MappedWordsGraph(f);
+        for (int id = 0; id < graph.getNumWords(); id++) {
+            assertEquals(id, mapped.getWordId(graph.getWord(id)));
+            assertEquals(graph.getFrequency(id), mapped.getFrequency(id));
+        }
+        assertEquals(1, mapped.getEdgeWeight("cat", "saw"));
+        assertEquals(-1, mapped.getEdgeWeight("saw", "cat"));
+        assertEquals(graph.getAllWeightedEdges(), WordsGraphSnapshot.read(f).getAllWeightedEdges());
+    }
+
+    @Test
+    void testCorpusScores() throws IOException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> text = new FileWordParser(new File("res/alice.txt")).getLines();
+        List<String> corpus = new FileWordParser(new File("res/gastby.txt")).getLines();
+
+        TextAnalyzer heap = new TextAnalyzer(stopWords, "ENTROPY");
+        heap.addText(text);
+        heap.addCorpus(corpus);
+        File f = File.createTempFile("nutshell", ".snapshot");
+        f.deleteOnExit();
+        WordsGraphSnapshot.write(heap.getCorpusGraph(), f);
+
+        TextAnalyzer mapped = new TextAnalyzer(stopWords, "ENTROPY");
+        mapped.addText(text);
+        mapped.addCorpus(new MappedWordsGraph(f));
+        assertNull(mapped.getCorpusGraph());
+        assertEquals(heap.getKeyWordsSingle(50), mapped.getKeyWordsSingle(50));
+
+        /* adding to a mapped corpus adds to a heap copy of it */
+        heap.addCorpus(text);
+        mapped.addCorpus(text);
+        assertNotNull(mapped.getCorpusGraph());
+        assertEquals(heap.getKeyWordsSingle(50), mapped.getKeyWordsSingle(50));
+    }
+}
@@ -0,0 +1,78 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhraseIndexTest {
+
+    @Test
+    void testCounts() {
+        WordsGraph graph = new WordsGraph();
+        List<String> phrases = Arrays.asList("white rabbit", "queen", "white rabbit", "mock turtle");
+        graph.addAll(phrases);
+        PhraseIndex index = new PhraseIndex();
+        index.addAll(phrases);
+
+        assertEquals(3, index.size());
+        assertEquals("white rabbit", index.getPhrase(0));
+        assertEquals(2, index.getCount(0));
+        double[] scores = {1.0, 2.0, 4.0, 8.0, 16.0};  // white, rabbit, queen, mock, turtle
+        assertEquals(3.0, index.score(0, graph, scores));
+        assertEquals(24.0, index.score(2, graph, scores));
+
+        index.remove("queen");
+        assertEquals(0, index.getCount(1));
+        assertThrows(IllegalArgumentException.class, () -> index.remove("queen"));
+        PhraseIndex compacted = index.compact();
+        assertEquals(2, compacted.size());
+        assertEquals("mock turtle", compacted.getPhrase(1));
+        assertEquals(1, compacted.getCount(1));
+    }
+
+    @Test
+    void testSameAsScoringEachOccurrence() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> lines = new FileWordParser(new File("res/alice.txt")).getLines();
+        TextAnalyzer analyzer = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        analyzer.addText(lines.subList(0, lines.size() / 2));
+        analyzer.addText(lines.subList(lines.size() / 2, lines.size()));
+
+        Map<String, Double> expected = new HashMap<>();
+        for (String candidate : analyzer.getKeywordCandidates(lines)) {
+            expected.merge(candidate, analyzer.scoreString(candidate), Double::sum);
+        }
+        List<ScoredWord> keywords = analyzer.getKeywords(100);
+        assertEquals(100, keywords.size());
+        for (ScoredWord sw : keywords) {
+            assertEquals(expected.get(sw.word), sw.score, 1e-9 * sw.score, sw.word);
+        }
+    }
+
+    @Test
+    void testCorpusCandidatesAppended() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> gatsby = new FileWordParser(new File("res/gastby.txt")).getLines();
+        List<String> oldMan = new FileWordParser(new File("res/old_man.txt")).getLines();
+
+        TextAnalyzer analyzer = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        analyzer.setRetainCorpusText(true);
+        analyzer.addCorpus(gatsby);
+        analyzer.addCorpus(analyzer.createShard(oldMan));
+        TextAnalyzer corpusAsText = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        corpusAsText.addText(gatsby);
+        corpusAsText.addText(oldMan);
+
+        assertEquals(corpusAsText.getKeywords(30), analyzer.getCorpusView().getKeywords(30));
+    }
+}
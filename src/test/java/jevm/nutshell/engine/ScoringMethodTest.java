@@ -0,0 +1,51 @@
+package jevm.nutshell.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoringMethodTest {
+
+    @Test
+    void testScores() {
+        WordsGraph graph = new WordsGraph();
+        graph.addString("white rabbit");
+        graph.addString("white rabbit hole");
+        graph.addString("white queen");
+        int white = graph.getWordId("white");
+
+        /* white: frequency 3, edges to rabbit twice and queen once */
+        assertEquals(2.0, ScoringMethod.DEGREE.score(graph, white, false));
+        assertEquals(3.0, ScoringMethod.WEIGHTED_DEGREE.score(graph, white, false));
+        assertEquals(1.0, ScoringMethod.RELATIVE_DEGREE.score(graph, white, false));
+        assertEquals(3.0 / 7, ScoringMethod.FREQUENCY.score(graph, white, false));
+        double entropy = - (3.0 / 7) * Math.log(3.0 / 7);
+        assertEquals(entropy, ScoringMethod.ENTROPY.score(graph, white, true));
+        assertEquals(entropy * 3, ScoringMethod.ENTROPY.score(graph, white, false));
+    }
+
+    @Test
+    void testTfIdf() {
+        WordsGraph text = new WordsGraph();
+        text.addString("white rabbit white queen");
+        DocumentFrequencyTable documents = new DocumentFrequencyTable();
+        documents.addDocument(new HashSet<>(Arrays.asList("white", "knight")), 2);
+        documents.addDocument(new HashSet<>(Arrays.asList("red", "queen", "of", "hearts")), 4);
+
+        /* text of 4 words, 2 documents of average length 3 */
+        double lengthRatio = 4.0 / 3;
+        double white = 2 * 2.2 / (2 + 1.2 * (0.25 + 0.75 * lengthRatio)) * Math.log(1 + 1.5 / 1.5);
+        double rabbit = 2.2 / (1 + 1.2 * (0.25 + 0.75 * lengthRatio)) * Math.log(1 + 2.5 / 0.5);
+        assertEquals(white, ScoringMethod.scoreVsDocuments(text, text.getWordId("white"), documents), 1e-12);
+        assertEquals(rabbit, ScoringMethod.scoreVsDocuments(text, text.getWordId("rabbit"), documents), 1e-12);
+        assertEquals(2 * 2.2 / (2 + 1.2), ScoringMethod.TF_IDF.score(text, text.getWordId("white"), false), 1e-12);
+    }
+
+    @Test
+    void testNames() {
+        assertEquals(Arrays.asList(TextAnalyzer.scoringOptions), Arrays.asList(ScoringMethod.names()));
+    }
+}
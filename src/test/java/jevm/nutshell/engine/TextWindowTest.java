@@ -0,0 +1,92 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextWindowTest {
+
+    @Test
+    void testSameAsWindowText() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> lines = new FileWordParser(new File("res/alice.txt")).getLines();
+        List<String> corpus = new FileWordParser(new File("res/gastby.txt")).getLines();
+
+        for (String scoring : TextAnalyzer.scoringOptions) {
+            TextAnalyzer analyzer = new TextAnalyzer(stopWords, scoring);
+            analyzer.addCorpus(corpus);
+            TextWindow window = new TextWindow(analyzer, 200);
+            for (int i = 0; i < lines.size(); i++) {
+                window.add(Collections.singletonList(lines.get(i)), i);
+                if (i % 500 == 0) window.getKeyWordsSingle(10);  // scores are updated from here on
+            }
+            assertEquals(200, window.size());
+
+            TextAnalyzer full = new TextAnalyzer(stopWords, scoring);
+            full.addCorpus(corpus);
+            full.addText(lines.subList(lines.size() - 200, lines.size()));
+            assertEquals(full.getKeyWordsSingle(30), window.getKeyWordsSingle(30), scoring);
+            assertEquals(full.getKeywords(30), window.getKeywords(30), scoring);
+            assertEquals(full.getAbstract(5), window.getAnalyzer().getAbstract(5), scoring);
+        }
+    }
+
+    @Test
+    void testExpire() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> lines = new FileWordParser(new File("res/alice.txt")).getLines();
+        TextWindow window = new TextWindow(new TextAnalyzer(stopWords, "WEIGHTED_DEGREE"), Integer.MAX_VALUE, 1000);
+
+        window.add(lines.subList(0, 100), 0);
+        window.add(lines.subList(100, 150), 600);
+        assertEquals(150, window.size());
+        window.expire(1000);
+        assertEquals(50, window.size());
+
+        TextAnalyzer latest = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        latest.addText(lines.subList(100, 150));
+        assertEquals(latest.getKeyWordsSingle(20), window.getKeyWordsSingle(20));
+
+        window.expire(1600);
+        assertEquals(0, window.size());
+        assertEquals(0, window.getKeyWordsSingle(20).size());
+        assertThrows(IllegalArgumentException.class, () -> new TextWindow(latest, 0));
+    }
+
+    @Test
+    void testNoNaNAfterEviction() {
+        List<String> stopWords = Arrays.asList("the", "of");
+        /* ox is only a candidate in the first line, in the second it is too short */
+        List<String> lines = Arrays.asList("the big ox", "the ox of barn yard", "big red barn");
+
+        for (String scoring : TextAnalyzer.scoringOptions) {
+            for (boolean withCorpus : new boolean[] {false, true}) {
+                TextAnalyzer analyzer = new TextAnalyzer(stopWords, scoring);
+                if (withCorpus) analyzer.addCorpus(Arrays.asList("an ox in a big barn", "red barn yard"));
+                TextWindow window = new TextWindow(analyzer, 2);
+                for (String line : lines) {
+                    window.add(Collections.singletonList(line), 0);
+                }
+                assertEquals(2, window.size());
+
+                List<ScoredWord> scored = new ArrayList<>(window.getAnalyzer().getAbstract(5));
+                scored.addAll(window.getKeywords(10));
+                scored.addAll(window.getKeyWordsSingle(10));
+                assertFalse(scored.isEmpty());
+                for (ScoredWord word : scored) {
+                    assertFalse(Double.isNaN(word.score), scoring + " " + word);
+                }
+            }
+        }
+    }
+}
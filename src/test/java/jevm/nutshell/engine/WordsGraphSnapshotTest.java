@@ -0,0 +1,60 @@
+package jevm.nutshell.engine;
+
+import jevm.nutshell.parser.FileWordParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordsGraphSnapshotTest {
+
+    @Test
+    void testWriteRead() throws IOException {
+        WordsGraph graph = new WordsGraph();
+        graph.addAll(new FileWordParser(new File("res/alice.txt")).getLines());
+
+        File f = File.createTempFile("nutshell", ".snapshot");
+        f.deleteOnExit();
+        WordsGraphSnapshot.write(graph, f);
+        WordsGraph loaded = WordsGraphSnapshot.read(f);
+
+        assertEquals(graph.getNumWords(), loaded.getNumWords());
+        assertEquals(graph.getNumEdges(), loaded.getNumEdges());
+        assertEquals(graph.numWeightedEdges, loaded.numWeightedEdges);
+        assertEquals(graph.getAllWeightedEdges(), loaded.getAllWeightedEdges());
+        assertEquals(graph.getWordRelativeFreqs(), loaded.getWordRelativeFreqs());
+        for (int id = 0; id < graph.getNumWords(); id++) {
+            String word = graph.getWord(id);
+            assertEquals(id, loaded.getWordId(word));
+            assertEquals(graph.getWordInDegree(word), loaded.getWordInDegree(word));
+            assertEquals(graph.getWordOutDegree(word), loaded.getWordOutDegree(word));
+        }
+
+        /* loaded graph keeps growing as usual */
+        loaded.addString("Alice Rabbit");
+        assertEquals(graph.getWordFreq("Alice") + 1, loaded.getWordFreq("Alice"));
+
+        /* removed words are not saved */
+        graph.addString("jabberwocky bandersnatch");
+        graph.removeString("jabberwocky bandersnatch");
+        assertEquals(2, graph.getNumRemovedWords());
+        WordsGraphSnapshot.write(graph, f);
+        loaded = WordsGraphSnapshot.read(f);
+        assertEquals(graph.getNumWords(), loaded.getNumWords());
+        assertEquals(0, loaded.getNumRemovedWords());
+        assertEquals(graph.getWordRelativeFreqs(), loaded.getWordRelativeFreqs());
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        File f = File.createTempFile("nutshell", ".snapshot");
+        f.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write("not a snapshot at all".getBytes());
+        }
+        assertThrows(IOException.class, () -> WordsGraphSnapshot.read(f));
+    }
+}
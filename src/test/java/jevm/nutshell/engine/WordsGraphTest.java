@@ -5,10 +5,14 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class WordsGraphTest {
 
@@ -28,21 +32,17 @@ class WordsGraphTest {
             graph.addWord(words[words.length - 1]);
         }
 
-        for(String word : graph.adjacencySets.keySet()) {
-            System.out.print(word + " freq = ");
-            WordsGraph.WordData data = graph.adjacencySets.get(word);
+        for(Map.Entry<String, WordsGraph.WordData> entry : graph.getAllEntries()) {
+            System.out.print(entry.getKey() + " freq = ");
+            WordsGraph.WordData data = entry.getValue();
             System.out.println(data.frequency + " in = " + data.inDegree + " out = " + data.outDegree);
 
         }
 
         System.out.println();
-        for(String word : graph.adjacencySets.keySet()) {
-            System.out.print(word + " {");
-            WordsGraph.WordData data = graph.adjacencySets.get(word);
-            for(WordsGraph.Edge e : data.weightedEdges.keySet()) {
-                System.out.print("," + e.source + "-" + e.destination + "(" + data.weightedEdges.get(e) + ")");
-            }
-            System.out.println(" }");
+        Map<WordsGraph.Edge, Integer> edges = graph.getAllWeightedEdges();
+        for(WordsGraph.Edge e : edges.keySet()) {
+            System.out.println(e.source + "-" + e.destination + "(" + edges.get(e) + ")");
         }
     }
 
@@ -126,4 +126,88 @@ class WordsGraphTest {
             System.out.println(e + "(" + map.get(e) + ")");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMerge() throws FileNotFoundException {
+        String[] files = {"res/alice.txt", "res/old_man.txt", "res/text_test1.txt"};
+        WordsGraph sequential = new WordsGraph();
+        WordsGraph merged = new WordsGraph();
+        for (String file : files) {
+            List<String> lines = new FileWordParser(new File(file)).getLines();
+            sequential.addAll(lines, " ");
+            WordsGraph shard = new WordsGraph();
+            shard.addAll(lines, " ");
+            merged.merge(shard);
+        }
+
+        assertEquals(sequential.getNumWords(), merged.getNumWords());
+        assertEquals(sequential.getNumEdges(), merged.getNumEdges());
+        assertEquals(sequential.numWeightedEdges, merged.numWeightedEdges);
+        assertEquals(sequential.getAllWeightedEdges(), merged.getAllWeightedEdges());
+        for (int id = 0; id < sequential.getNumWords(); id++) {
+            assertEquals(sequential.getWord(id), merged.getWord(id));
+            assertEquals(sequential.frequency[id], merged.frequency[id]);
+            assertEquals(sequential.inDegree[id], merged.inDegree[id]);
+            assertEquals(sequential.outDegree[id], merged.outDegree[id]);
+            assertEquals(sequential.weightedInDegree[id], merged.weightedInDegree[id]);
+            assertEquals(sequential.weightedOutDegree[id], merged.weightedOutDegree[id]);
+        }
+    }
+
+    @Test
+    void testRemove() throws FileNotFoundException {
+        List<String> lines = new FileWordParser(new File("res/alice.txt")).getLines();
+        int half = lines.size() / 2;
+        WordsGraph removed = new WordsGraph();
+        removed.addAll(lines);
+        for (String line : lines.subList(0, half)) {
+            removed.removeString(line);
+        }
+        WordsGraph remaining = new WordsGraph();
+        remaining.addAll(lines.subList(half, lines.size()));
+
+        WordsGraph compacted = removed.compact();
+        assertEquals(remaining.getNumWords(), compacted.getNumWords());
+        assertEquals(remaining.getNumEdges(), compacted.getNumEdges());
+        assertEquals(remaining.numWeightedEdges, compacted.numWeightedEdges);
+        assertEquals(remaining.getTotalFrequency(), compacted.getTotalFrequency());
+        assertEquals(remaining.getAllWeightedEdges(), compacted.getAllWeightedEdges());
+        for (int id = 0; id < remaining.getNumWords(); id++) {
+            String word = remaining.getWord(id);
+            int removedId = removed.getWordId(word);
+            int compactedId = compacted.getWordId(word);
+            assertEquals(remaining.frequency[id], removed.frequency[removedId]);
+            assertEquals(remaining.inDegree[id], removed.inDegree[removedId]);
+            assertEquals(remaining.outDegree[id], removed.outDegree[removedId]);
+            assertEquals(remaining.weightedInDegree[id], compacted.weightedInDegree[compactedId]);
+            assertEquals(remaining.weightedOutDegree[id], compacted.weightedOutDegree[compactedId]);
+        }
+        assertEquals(removed.getIdBound() - compacted.getNumWords(), removed.getNumRemovedWords());
+        assertEquals(0, compacted.getNumRemovedWords());
+
+        /* removed words are not in the graph any more even before compacting */
+        assertEquals(remaining.getNumWords(), removed.getNumWords());
+        assertEquals(remaining.getWordRelativeFreqs(), removed.getWordRelativeFreqs());
+        Set<String> entries = new HashSet<>();
+        for (Map.Entry<String, WordsGraph.WordData> entry : removed.getAllEntries()) {
+            entries.add(entry.getKey());
+        }
+        assertEquals(remaining.getNumWords(), removed.getAllEntries().size());
+        assertEquals(remaining.getWordRelativeFreqs().keySet(), entries);
+
+        /* removed words added again are no longer counted */
+        WordsGraph readded = removed.compact();
+        for (String line : lines.subList(half, lines.size())) {
+            removed.removeString(line);
+        }
+        assertEquals(removed.getIdBound(), removed.getNumRemovedWords());
+        assertEquals(0, removed.getNumWords());
+        assertTrue(removed.getAllEntries().isEmpty());
+        removed.addAll(lines.subList(0, half));
+        removed.merge(readded);
+        assertEquals(0, removed.getNumRemovedWords());
+
+        assertThrows(IllegalArgumentException.class, () -> removed.removeWord("bananas"));
+        assertThrows(IllegalArgumentException.class, () -> removed.removeEdge("alice", "bananas"));
+    }
+}
@@ -0,0 +1,116 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.batch.BatchRunner;
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.MappedFileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    private static final List<File> FILES = Arrays.asList(new File("res/alice.txt"), new File("res/missing.txt"),
+            new File("res/old_man.txt"), new File("res/text_test1.txt"));
+
+    private static TextAnalyzer createPrototype(List<String> stopWords) throws IOException {
+        TextAnalyzer prototype = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        prototype.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+        return prototype;
+    }
+
+    @Test
+    void testTsv() throws IOException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        StringWriter out = new StringWriter();
+        new BatchRunner(createPrototype(stopWords), "single", 10, BatchRunner.Format.TSV, 3).run(FILES, out);
+
+        String[] records = out.toString().split("\n");
+        assertEquals(FILES.size(), records.length);
+        for (int i = 0; i < FILES.size(); i++) {
+            String[] fields = records[i].split("\t");
+            assertEquals(FILES.get(i).getPath(), fields[0]);
+            assertTrue(Double.parseDouble(fields[1]) >= 0);
+            if (!FILES.get(i).exists()) {
+                assertEquals("error", fields[2]);
+                continue;
+            }
+
+            /* same result as analyzing the document alone */
+            TextAnalyzer analyzer = createPrototype(stopWords);
+            analyzer.addText(new MappedFileWordParser(FILES.get(i)).getLines());
+            List<ScoredWord> expected = analyzer.getKeyWordsSingle(10);
+            assertEquals(2 + 2 * expected.size(), fields.length);
+            for (int k = 0; k < expected.size(); k++) {
+                assertEquals(expected.get(k).word, fields[2 + 2 * k]);
+                assertEquals(expected.get(k).score, Double.parseDouble(fields[3 + 2 * k]));
+            }
+        }
+    }
+
+    @Test
+    void testJsonLines() throws IOException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        StringWriter out = new StringWriter();
+        new BatchRunner(createPrototype(stopWords), "multi", 5, BatchRunner.Format.JSONL, 2).run(FILES, out);
+
+        String[] records = out.toString().split("\n");
+        assertEquals(FILES.size(), records.length);
+        for (int i = 0; i < FILES.size(); i++) {
+            JSONObject record = (JSONObject) JSONValue.parse(records[i]);
+            assertEquals(FILES.get(i).getPath(), record.get("file"));
+            assertNotNull(record.get("millis"));
+            if (!FILES.get(i).exists()) {
+                assertNotNull(record.get("error"));
+                continue;
+            }
+
+            TextAnalyzer analyzer = createPrototype(stopWords);
+            analyzer.addText(new MappedFileWordParser(FILES.get(i)).getLines());
+            List<ScoredWord> expected = analyzer.getKeywords(5);
+            JSONArray keywords = (JSONArray) record.get("keywords");
+            assertEquals(expected.size(), keywords.size());
+            for (int k = 0; k < expected.size(); k++) {
+                JSONObject keyword = (JSONObject) keywords.get(k);
+                assertEquals(expected.get(k).word, keyword.get("word"));
+                assertEquals(expected.get(k).score, ((Number) keyword.get("score")).doubleValue());
+            }
+        }
+    }
+
+    @Test
+    void testDocumentErrors() throws IOException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        StringWriter out = new StringWriter();
+        /* a negative number of results fails analyzing each document, not the batch */
+        new BatchRunner(createPrototype(stopWords), "abstractText", -1, BatchRunner.Format.JSONL, 2).run(FILES, out);
+
+        String[] records = out.toString().split("\n");
+        assertEquals(FILES.size(), records.length);
+        for (int i = 0; i < FILES.size(); i++) {
+            JSONObject record = (JSONObject) JSONValue.parse(records[i]);
+            assertEquals(FILES.get(i).getPath(), record.get("file"));
+            assertNotNull(record.get("error"));
+        }
+    }
+
+    @Test
+    void testListInputs() throws IOException {
+        List<File> files = BatchRunner.listInputs(new File("res"));
+        assertEquals(new File("res/alice.txt"), files.get(0));
+        for (File file : files) {
+            assertTrue(file.getName().endsWith(".txt"));
+        }
+    }
+}
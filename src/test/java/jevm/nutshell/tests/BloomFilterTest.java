@@ -0,0 +1,30 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.data.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testMembership() {
+        BloomFilter filter = new BloomFilter(1 << 16, 5);
+        BloomFilter copy = new BloomFilter(filter);
+        assertTrue(filter.add(0));
+        assertFalse(filter.add(0));
+        for (long key = 1; key < 5000; key++) {
+            filter.add(key * 31);
+        }
+        assertFalse(copy.mayContain(0));
+
+        int falsePositives = 0;
+        for (long key = 0; key < 5000; key++) {
+            assertTrue(filter.mayContain(key * 31));
+            if (filter.mayContain(key * 31 + 1)) falsePositives++;
+        }
+        /* about 1.5% expected for 13 bits per key */
+        assertTrue(falsePositives < 250, "false positives " + falsePositives);
+        assertEquals(1 << 13, filter.getMemoryBytes());
+    }
+}
@@ -0,0 +1,64 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.visualization.CloudLayout;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloudLayoutTest {
+
+    private static Map<String, Integer> sizes(int n) {
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            sizes.put("word" + i, 20 + (i * 37) % 80);
+        }
+        return sizes;
+    }
+
+    @Test
+    void testNoOverlap() {
+        CloudLayout layout = new CloudLayout(1024, 800, 7L);
+        List<CloudLayout.PlacedWord> placed = layout.layout(sizes(200));
+
+        assertFalse(placed.isEmpty());
+        for (int i = 0; i < placed.size(); i++) {
+            CloudLayout.PlacedWord a = placed.get(i);
+            assertTrue(a.left >= 0 && a.top >= 0 && a.right <= 1024 && a.bottom <= 800, a.text);
+            if (i > 0) assertTrue(placed.get(i - 1).size >= a.size);
+            for (int j = 0; j < i; j++) {
+                CloudLayout.PlacedWord b = placed.get(j);
+                boolean overlap = a.left < b.right && b.left < a.right && a.top < b.bottom && b.top < a.bottom;
+                assertFalse(overlap, a.text + " overlaps " + b.text);
+            }
+        }
+    }
+
+    @Test
+    void testDeterministic() {
+        List<CloudLayout.PlacedWord> first = new CloudLayout(800, 600, 3L).layout(sizes(100));
+        List<CloudLayout.PlacedWord> second = new CloudLayout(800, 600, 3L).layout(new HashMap<>(sizes(100)));
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).text, second.get(i).text);
+            assertEquals(first.get(i).x, second.get(i).x);
+            assertEquals(first.get(i).y, second.get(i).y);
+            assertEquals(first.get(i).rotate, second.get(i).rotate);
+        }
+    }
+
+    @Test
+    void testWordsThatDoNotFit() {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("small", 10);
+        sizes.put("muchtoolongforthecanvas", 100);
+
+        List<CloudLayout.PlacedWord> placed = new CloudLayout(200, 100, 1L).layout(sizes);
+        assertEquals(1, placed.size());
+        assertEquals("small", placed.get(0).text);
+    }
+}
@@ -0,0 +1,53 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.data.CountMinSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void testErrorBounds() {
+        CountMinSketch sketch = CountMinSketch.withErrorBounds(0.001, 0.01);
+        assertTrue(sketch.getEpsilon() <= 0.001);
+        assertTrue(sketch.getDelta() <= 0.01);
+
+        /* zipf like counts, key k added about 1000 / k times */
+        int numKeys = 20000;
+        int[] counts = new int[numKeys];
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            int key = (int) (1000 / (1 + random.nextInt(1000) * random.nextDouble())) % numKeys;
+            counts[key]++;
+            sketch.add(key, 1);
+        }
+        assertEquals(200000, sketch.getTotalCount());
+
+        int exceeded = 0;
+        for (int key = 0; key < numKeys; key++) {
+            int estimate = sketch.estimate(key);
+            assertTrue(estimate >= counts[key]);
+            if (estimate > counts[key] + sketch.getEpsilon() * sketch.getTotalCount()) exceeded++;
+        }
+        assertTrue(exceeded <= numKeys * sketch.getDelta());
+    }
+
+    @Test
+    void testMerge() {
+        CountMinSketch a = new CountMinSketch(64, 3);
+        CountMinSketch b = new CountMinSketch(64, 3);
+        a.add(7, 3);
+        b.add(7, 2);
+        b.add(11, 5);
+        CountMinSketch copy = new CountMinSketch(a);
+        a.merge(b);
+        assertTrue(a.estimate(7) >= 5);
+        assertTrue(a.estimate(11) >= 5);
+        assertEquals(10, a.getTotalCount());
+        assertEquals(3, copy.estimate(7));
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new CountMinSketch(32, 3)));
+    }
+}
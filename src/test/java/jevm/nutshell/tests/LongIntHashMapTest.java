@@ -0,0 +1,152 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.data.LongIntHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    /* 16 slots until it holds more than 9 keys */
+    private static final int SLOTS = 16;
+
+    /* home slot of a key in a map of SLOTS slots, same mixing as LongIntHashMap */
+    private static int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (SLOTS - 1);
+    }
+
+    /* distinct non zero keys with the same home slot */
+    private static List<Long> collidingKeys(int slot, int n) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < n; key++) {
+            if (home(key) == slot) keys.add(key);
+        }
+        return keys;
+    }
+
+    private static Map<Long, Integer> toMap(LongIntHashMap map) {
+        Map<Long, Integer> output = new HashMap<>();
+        map.forEach((key, value) -> assertNull(output.put(key, value)));
+        return output;
+    }
+
+    @Test
+    void testFreeKey() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.get(0, -1));
+        assertFalse(map.remove(0));
+
+        assertEquals(2, map.addTo(0, 2));
+        map.put(7, 1);
+        assertTrue(map.containsKey(0));
+        assertEquals(2, map.get(0, -1));
+        assertEquals(2, map.size());
+        map.put(0, 5);
+        assertEquals(2, map.size());
+        assertEquals(5, toMap(map).get(0L).intValue());
+
+        assertTrue(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(1, map.size());
+        assertEquals(1, map.get(7, -1));
+        assertEquals(1, map.addTo(0, 1));  // a removed key counts from zero again
+    }
+
+    @Test
+    void testNegativeKeys() {
+        LongIntHashMap map = new LongIntHashMap();
+        long[] keys = {-1L, Long.MIN_VALUE, Long.MAX_VALUE, (3L << 32) | 0xFFFFFFFFL, -(5L << 32)};
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        assertEquals(keys.length, map.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, map.get(keys[i], -1));
+        }
+        assertFalse(map.containsKey(1L << 32));
+        assertTrue(map.remove(Long.MIN_VALUE));
+        assertEquals(-1, map.get(Long.MIN_VALUE, -1));
+        assertEquals(0, map.get(-1L, -1));
+    }
+
+    @Test
+    void testAddToZeroThenRemove() {
+        /* as an edge whose weight gets to zero is removed from a graph */
+        LongIntHashMap map = new LongIntHashMap();
+        assertEquals(1, map.addTo(42, 1));
+        assertEquals(2, map.addTo(42, 1));
+        assertEquals(1, map.addTo(42, -1));
+        assertEquals(0, map.addTo(42, -1));
+        assertTrue(map.containsKey(42));
+        assertTrue(map.remove(42));
+        assertFalse(map.containsKey(42));
+        assertEquals(0, map.size());
+        assertEquals(1, map.addTo(42, 1));
+    }
+
+    @Test
+    void testRemoveInProbeChain() {
+        /* chains starting at the last slot wrap around to the first ones */
+        for (int slot : new int[] {3, SLOTS - 1}) {
+            List<Long> keys = collidingKeys(slot, 5);
+            for (int removed = 0; removed < keys.size(); removed++) {
+                LongIntHashMap map = new LongIntHashMap(1);
+                for (int i = 0; i < keys.size(); i++) {
+                    map.put(keys.get(i), i);
+                }
+                /* after the chain a key that has to move back into it and one at its home slot that must not */
+                long moved = collidingKeys((slot + 2) % SLOTS, 1).get(0);
+                long kept = collidingKeys((slot + 6) % SLOTS, 1).get(0);
+                map.put(moved, 100);
+                map.put(kept, 200);
+
+                assertTrue(map.remove(keys.get(removed)));
+                assertFalse(map.remove(keys.get(removed)));
+                assertEquals(keys.size() + 1, map.size());
+                for (int i = 0; i < keys.size(); i++) {
+                    assertEquals(i == removed ? -1 : i, map.get(keys.get(i), -1), "slot " + slot);
+                }
+                assertEquals(100, map.get(moved, -1));
+                assertEquals(200, map.get(kept, -1));
+            }
+        }
+    }
+
+    @Test
+    void testSameAsHashMap() {
+        Random random = new Random(11);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(2000) - 1000;  // few keys, lots of churn and 0 among them
+            switch (random.nextInt(4)) {
+                case 0:
+                    map.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 1:
+                    assertEquals(expected.merge(key, 1, Integer::sum).intValue(), map.addTo(key, 1));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key, -1));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, toMap(map));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(toMap(map).isEmpty());
+    }
+}
@@ -0,0 +1,38 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.MappedFileWordParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileWordParserTest {
+
+    private static final String[] FILES = {"res/text_test1.txt", "res/text_test2.txt", "res/alice.txt",
+            "res/gastby.txt", "res/old_man.txt", "res/mobydick.txt"};
+
+    @Test
+    void testFileRead() throws IOException {
+        try (MappedFileWordParser fp = new MappedFileWordParser(new File("res/text_test1.txt"))) {
+            assertEquals("alice looked at the jury box", fp.nextLine().toLowerCase());
+            assertEquals("and saw that", fp.nextLine().toLowerCase());
+            assertEquals("in her haste", fp.nextLine().toLowerCase());
+        }
+    }
+
+    @Test
+    void testSameAsScanner() throws IOException {
+        for (String file : FILES) {
+            List<String> expected = new FileWordParser(new File(file), StandardCharsets.UTF_8).getLines();
+            try (MappedFileWordParser fp = new MappedFileWordParser(new File(file), StandardCharsets.UTF_8)) {
+                assertEquals(expected, fp.getLines(), file);
+                assertFalse(fp.hasNext());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.metrics.Metrics;
+import jevm.nutshell.parser.MappedFileWordParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    private static final List<String> STOP_WORDS = Arrays.asList("the", "a", "of", "and", "to", "she");
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    private static TextAnalyzer analyze() throws IOException {
+        TextAnalyzer analyzer = new TextAnalyzer(STOP_WORDS, "WEIGHTED_DEGREE");
+        try (MappedFileWordParser parser = new MappedFileWordParser(new File("res/alice.txt"))) {
+            analyzer.addText(parser);
+        }
+        analyzer.getKeywords(10);
+        return analyzer;
+    }
+
+    @Test
+    void testDisabled() throws IOException {
+        Metrics.reset();
+        analyze();
+        for (Metrics.Stage stage : Metrics.Stage.values()) {
+            assertEquals(0, Metrics.getNanos(stage), stage.name());
+        }
+        for (Metrics.Counter counter : Metrics.Counter.values()) {
+            assertEquals(0, Metrics.getCount(counter), counter.name());
+        }
+    }
+
+    @Test
+    void testEnabled() throws IOException {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        analyze();
+
+        for (Metrics.Stage stage : Metrics.Stage.values()) {
+            assertTrue(Metrics.getNanos(stage) > 0, stage.name());
+        }
+        assertEquals(new File("res/alice.txt").length(), Metrics.getCount(Metrics.Counter.BYTES));
+        assertTrue(Metrics.getCount(Metrics.Counter.SENTENCES) > 0);
+        assertTrue(Metrics.getCount(Metrics.Counter.CANDIDATES) > 0);
+        /* every word of every candidate went into the graph, with an edge to the next one */
+        assertTrue(Metrics.getCount(Metrics.Counter.WORDS) >= Metrics.getCount(Metrics.Counter.CANDIDATES));
+        assertEquals(Metrics.getCount(Metrics.Counter.WORDS) - Metrics.getCount(Metrics.Counter.CANDIDATES),
+                Metrics.getCount(Metrics.Counter.EDGES));
+        assertTrue(Metrics.getRate(Metrics.Counter.BYTES) > 0);
+        assertTrue(Metrics.summary().contains("selection"));
+
+        Metrics.reset();
+        assertEquals(0, Metrics.getCount(Metrics.Counter.WORDS));
+    }
+
+    @Test
+    void testMBean() throws Exception {
+        Metrics.registerMBean();
+        Metrics.registerMBean();  // already registered
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+
+        server.setAttribute(name, new Attribute("Enabled", true));
+        assertTrue(Metrics.isEnabled());
+        analyze();
+        assertEquals(Metrics.getCount(Metrics.Counter.WORDS), server.getAttribute(name, "Words"));
+        assertTrue((Long) server.getAttribute(name, "ParseNanos") > 0);
+        server.invoke(name, "reset", null, null);
+        assertEquals(0L, server.getAttribute(name, "Words"));
+    }
+}
@@ -0,0 +1,127 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.engine.TextAnalyzer;
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import jevm.nutshell.server.NutshellServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NutshellServerTest {
+
+    private List<String> stopWords;
+    private TextAnalyzer prototype;
+    private NutshellServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        prototype = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        prototype.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+        server = new NutshellServer(prototype, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    private HttpURLConnection post(String path, byte[] body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return connection;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String toText(List<ScoredWord> keywords) {
+        StringBuilder sb = new StringBuilder();
+        for (ScoredWord sw : keywords) {
+            sb.append(sw).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testSameAsAnalyzer() throws IOException {
+        byte[] text = Files.readAllBytes(new File("res/alice.txt").toPath());
+        TextAnalyzer analyzer = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        analyzer.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+        analyzer.addText(new FileWordParser(new ByteArrayInputStream(text), StandardCharsets.UTF_8).getLines());
+
+        HttpURLConnection connection = post("/keywords/single?n=20", text);
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(toText(analyzer.getKeyWordsSingle(20)), read(connection.getInputStream()));
+        assertEquals(toText(analyzer.getKeywords(15)), read(post("/keywords?n=15", text).getInputStream()));
+        assertEquals(toText(analyzer.getAbstract(5)), read(post("/abstract?n=5", text).getInputStream()));
+        assertEquals(analyzer.getTextAbstract(5) + "\n", read(post("/abstract/text?n=5", text).getInputStream()));
+
+        /* corpus of the prototype is not changed by requests */
+        assertEquals(toText(analyzer.getKeyWordsSingle(20)), read(post("/keywords/single?n=20", text).getInputStream()));
+    }
+
+    @Test
+    void testConcurrentRequests() throws Exception {
+        String[] files = {"res/alice.txt", "res/old_man.txt", "res/text_test1.txt"};
+        List<String> expected = new ArrayList<>();
+        for (String file : files) {
+            expected.add(read(post("/keywords?n=10", Files.readAllBytes(new File(file).toPath())).getInputStream()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                byte[] text = Files.readAllBytes(new File(files[i % files.length]).toPath());
+                responses.add(executor.submit(() -> read(post("/keywords?n=10", text).getInputStream())));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals(expected.get(i % files.length), responses.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testInvalidRequests() throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + "/keywords");
+        HttpURLConnection get = (HttpURLConnection) url.openConnection();
+        assertEquals(405, get.getResponseCode());
+
+        assertEquals(400, post("/keywords?n=ten", new byte[0]).getResponseCode());
+        assertEquals(404, post("/keywords/none", new byte[0]).getResponseCode());
+        assertEquals(200, post("/keywords", new byte[0]).getResponseCode());
+    }
+}
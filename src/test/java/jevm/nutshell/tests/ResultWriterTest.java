@@ -0,0 +1,73 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.output.Result;
+import jevm.nutshell.output.ResultWriter;
+import jevm.nutshell.output.TextOutput;
+import org.json.simple.JSONValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultWriterTest {
+
+    private static final List<ScoredWord> KEYWORDS = Arrays.asList(
+            new ScoredWord("white whale", 75264.0), new ScoredWord("ahab", 1.0E-5),
+            new ScoredWord("sea", Double.NaN));
+
+    private static String write(ResultWriter.Format format, int bufferSize, Result... results) throws IOException {
+        StringWriter out = new StringWriter();
+        try (ResultWriter writer = ResultWriter.create(format, new TextOutput(out, bufferSize))) {
+            for (Result result : results) {
+                writer.write(result);
+            }
+        }
+        return out.toString();
+    }
+
+    @Test
+    void testTextSameAsToString() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        for (ScoredWord sw : KEYWORDS) {
+            expected.append(sw).append('\n');
+        }
+        /* small buffers are flushed many times in the middle of words and numbers */
+        for (int bufferSize : new int[]{1, 3, TextOutput.DEFAULT_BUFFER_SIZE}) {
+            assertEquals(expected.toString(), write(ResultWriter.Format.TEXT, bufferSize, Result.of(KEYWORDS)));
+        }
+        assertEquals("An abstract. \n", write(ResultWriter.Format.TEXT, 4, Result.of("An abstract. ")));
+    }
+
+    @Test
+    void testTsv() throws IOException {
+        Result keywords = new Result("dir/a\tb.txt");
+        keywords.millis = 1.23456;
+        keywords.keywords = KEYWORDS;
+        Result error = new Result("c.txt");
+        error.error = "no such\nfile";
+
+        assertEquals("dir/a b.txt\t1.235\twhite whale\t75264.0\tahab\t1.0E-5\tsea\tNaN\n" +
+                        "c.txt\t0.000\terror\tno such file\n",
+                write(ResultWriter.Format.TSV, 16, keywords, error));
+    }
+
+    @Test
+    void testJsonLines() throws IOException {
+        String name = "a/\"b\"\\\t\u0001\u007f\u2028\u00e9.txt";
+        Result keywords = new Result(name);
+        keywords.keywords = KEYWORDS;
+        Result text = new Result("b.txt");
+        text.text = "line\r\nline";
+
+        assertEquals("{\"file\": \"" + JSONValue.escape(name) + "\", \"millis\": 0.000, \"keywords\": [" +
+                        "{\"word\": \"white whale\", \"score\": 75264.0}, {\"word\": \"ahab\", \"score\": 1.0E-5}, " +
+                        "{\"word\": \"sea\", \"score\": null}]}\n" +
+                        "{\"file\": \"b.txt\", \"millis\": 0.000, \"abstract\": \"line\\r\\nline\"}\n",
+                write(ResultWriter.Format.JSONL, 8, keywords, text));
+    }
+}
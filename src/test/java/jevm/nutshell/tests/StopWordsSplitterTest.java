@@ -0,0 +1,51 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.parser.FileWordParser;
+import jevm.nutshell.parser.StopWordsFileReader;
+import jevm.nutshell.parser.StopWordsSplitter;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopWordsSplitterTest {
+
+    private static String buildRegex(List<String> stopWords) {
+        StringBuilder sb = new StringBuilder("\\b(");
+        sb.append(String.join("|", stopWords));
+        sb.append(")+\\b");
+        return sb.toString();
+    }
+
+    @Test
+    void testSplit() {
+        StopWordsSplitter splitter = new StopWordsSplitter(Arrays.asList("a", "about", "in", "to", "the"));
+        assertEquals(Arrays.asList("", " little lamb ", " ", " farm"), splitter.split("about little lamb into the farm"));
+        assertEquals(Arrays.asList("", ""), splitter.split("intothe"));
+        assertEquals(Arrays.asList("inward"), splitter.split("inward"));
+        assertEquals(Arrays.asList("no stop words"), splitter.split("no stop words"));
+    }
+
+    @Test
+    void testSameAsRegex() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        StopWordsSplitter splitter = new StopWordsSplitter(stopWords);
+        String regex = buildRegex(stopWords);
+
+        FileWordParser fp = new FileWordParser(new File("res/alice.txt"));
+        while (fp.hasNext()) {
+            String line = fp.nextLine().toLowerCase();
+            List<String> expected = Arrays.asList(line.split(regex));
+            List<String> actual = splitter.split(line);
+            /* String.split drops trailing empty strings */
+            while (actual.size() > expected.size() && actual.get(actual.size() - 1).isEmpty()) {
+                actual.remove(actual.size() - 1);
+            }
+            assertEquals(expected, actual, line);
+        }
+    }
+}
@@ -10,6 +10,10 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 class TextAnalyzerTest {
 
     @Test
@@ -168,4 +172,108 @@ class TextAnalyzerTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIncrementalScoring() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        for (String scoring : TextAnalyzer.scoringOptions) {
+            TextAnalyzer incremental = new TextAnalyzer(stopWords, scoring);
+            TextAnalyzer full = new TextAnalyzer(stopWords, scoring);
+
+            incremental.addText(new FileWordParser(new File("res/alice.txt")).getLines());
+            incremental.addCorpus(new FileWordParser(new File("res/old_man.txt")).getLines());
+            incremental.getKeyWordsSingle(10);
+            incremental.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+            incremental.getKeyWordsSingle(10);
+            incremental.addText(new FileWordParser(new File("res/text_test1.txt")).getLines());
+
+            full.addText(new FileWordParser(new File("res/alice.txt")).getLines());
+            full.addCorpus(new FileWordParser(new File("res/old_man.txt")).getLines());
+            full.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+            full.addText(new FileWordParser(new File("res/text_test1.txt")).getLines());
+
+            assertEquals(full.getKeyWordsSingle(50), incremental.getKeyWordsSingle(50), scoring);
+            assertEquals(full.getKeyWordsSingle(50), incremental.getKeyWordsSingle(50), scoring);
+        }
+    }
+
+    @Test
+    void testStreaming() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        TextAnalyzer fromLines = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        TextAnalyzer streamed = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+
+        fromLines.addText(new FileWordParser(new File("res/alice.txt")).getLines());
+        fromLines.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+        try (FileWordParser text = new FileWordParser(new File("res/alice.txt"));
+             FileWordParser corpus = new FileWordParser(new File("res/gastby.txt"))) {
+            streamed.addText(text);
+            streamed.addCorpus(corpus);
+        }
+
+        assertEquals(fromLines.getKeyWordsSingle(30), streamed.getKeyWordsSingle(30));
+        assertEquals(fromLines.getKeywords(30), streamed.getKeywords(30));
+        assertEquals(fromLines.getAbstract(10), streamed.getAbstract(10));
+
+        /* without retained lines nor candidates only single keywords are available */
+        TextAnalyzer single = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        single.setRetainLines(false);
+        single.setRetainCandidates(false);
+        try (FileWordParser text = new FileWordParser(new File("res/alice.txt"))) {
+            single.addText(text);
+        }
+        single.addCorpus(new FileWordParser(new File("res/gastby.txt")).getLines());
+        assertEquals(fromLines.getKeyWordsSingle(30), single.getKeyWordsSingle(30));
+        assertEquals(0, single.getKeywords(30).size());
+        assertEquals(0, single.getAbstract(10).size());
+    }
+
+    @Test
+    void testCorpusView() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        List<String> corpusLines = new FileWordParser(new File("res/gastby.txt")).getLines();
+        TextAnalyzer analyzer = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        assertNull(analyzer.getCorpusView());
+
+        analyzer.setRetainCorpusText(true);
+        analyzer.addText(new FileWordParser(new File("res/alice.txt")).getLines());
+        analyzer.addCorpus(analyzer.createShard(corpusLines));
+
+        /* view of the corpus is the same as analyzing the corpus as text */
+        TextAnalyzer corpusAsText = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        corpusAsText.addText(corpusLines);
+        TextAnalyzer view = analyzer.getCorpusView();
+        assertEquals(corpusAsText.getKeyWordsSingle(30), view.getKeyWordsSingle(30));
+        assertEquals(corpusAsText.getKeywords(30), view.getKeywords(30));
+        assertEquals(corpusAsText.getAbstract(10), view.getAbstract(10));
+        assertEquals(corpusAsText.getTextAbstract(10), view.getTextAbstract(10));
+
+        assertThrows(UnsupportedOperationException.class, () -> view.addText(corpusLines));
+        assertThrows(UnsupportedOperationException.class, () -> view.addCorpus(corpusLines));
+    }
+
+    @Test
+    void testScoreString() throws FileNotFoundException {
+        List<String> stopWords = new StopWordsFileReader(new File("stopwords_EN.txt")).getStopWords();
+        TextAnalyzer analyzer = new TextAnalyzer(stopWords, "WEIGHTED_DEGREE");
+        List<String> lines = new FileWordParser(new File("res/alice.txt")).getLines();
+        analyzer.addText(lines);
+
+        Map<String, Double> scores = new HashMap<>();
+        for (ScoredWord sw : analyzer.getKeyWordsSingle(Integer.MAX_VALUE)) {
+            scores.put(sw.word, sw.score);
+        }
+
+        /* same as summing the scores of the lower cased words split on \s */
+        List<String> strings = new ArrayList<>(lines);
+        strings.addAll(Arrays.asList("", " ", "ALICE  Rabbit\t\tqueen\n", "\u0130alice ALICE", "\u03A3alice alice",
+                "\ud801\udc00 alice", "alice\u000Bhatter\frabbit\r", "\u00C9mile alice-rabbit"));
+        for (String s : strings) {
+            double expected = 0.0;
+            for (String word : s.toLowerCase().split("\\s")) {
+                expected += scores.getOrDefault(word, 0.0);
+            }
+            assertEquals(expected, analyzer.scoreString(s), s);
+        }
+    }
+}
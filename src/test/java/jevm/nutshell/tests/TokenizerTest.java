@@ -0,0 +1,48 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.parser.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenizerTest {
+
+    private static final String[] SAMPLES = {"", " ", "  ", "a", " a", "a ", "a  b", "\ta\nb\u000Bc\fd\re",
+            "mary had a little lamb", "  leading and trailing  ", "a,b,,c,,", ",", "x.y"};
+
+    @Test
+    void testSameAsSplit() {
+        for (String s : SAMPLES) {
+            assertArrayEquals(s.split("\\s"), Tokenizer.splitWhitespace(s), s);
+            for (String regex : new String[]{"\\s", " ", ",", "\\.", "[,.]", "\\s+"}) {
+                assertArrayEquals(s.split(regex), Tokenizer.split(s, regex), s + " / " + regex);
+            }
+        }
+
+        Random random = new Random(42);
+        char[] chars = {'a', 'b', ' ', '\t', '\n', ',', '\u00e9'};
+        for (int i = 0; i < 1000; i++) {
+            char[] s = new char[random.nextInt(12)];
+            for (int k = 0; k < s.length; k++) {
+                s[k] = chars[random.nextInt(chars.length)];
+            }
+            String string = new String(s);
+            assertArrayEquals(string.split("\\s"), Tokenizer.splitWhitespace(string), string);
+            assertArrayEquals(string.split(","), Tokenizer.split(string, ','), string);
+        }
+    }
+
+    @Test
+    void testTrimToLetters() {
+        for (String s : new String[]{"", "123", "'hello'", "  Alice said  ", "--x--", "a1b", "\u00e9t\u00e9"}) {
+            assertEquals(s.replaceAll("^[^a-zA-Z]+|[^a-zA-Z]+$", ""), Tokenizer.trimToLetters(s), s);
+        }
+    }
+
+    @Test
+    void testPatternCache() {
+        assertSame(Tokenizer.pattern("[,.]"), Tokenizer.pattern("[,.]"));
+    }
+}
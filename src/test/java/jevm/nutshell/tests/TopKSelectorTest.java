@@ -0,0 +1,51 @@
+package jevm.nutshell.tests;
+
+import jevm.nutshell.data.ScoredWord;
+import jevm.nutshell.data.TopKSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKSelectorTest {
+
+    @Test
+    void testTies() {
+        TopKSelector selector = new TopKSelector(3);
+        selector.offer("d", 1.0);
+        selector.offer("c", 2.0);
+        selector.offer("b", 1.0);
+        selector.offer("a", 1.0);
+        List<ScoredWord> top = selector.getSorted();
+        assertEquals(3, top.size());
+        assertEquals("c", top.get(0).word);
+        assertEquals("a", top.get(1).word);
+        assertEquals("b", top.get(2).word);
+    }
+
+    @Test
+    void testSameAsFullSort() {
+        Random random = new Random(7);
+        for (int k : new int[] {0, 1, 5, 100, 2000}) {
+            TopKSelector selector = new TopKSelector(k);
+            List<ScoredWord> all = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                String word = "w" + random.nextInt(500);
+                double score = random.nextInt(50);  // plenty of ties
+                selector.offer(word, score);
+                all.add(new ScoredWord(word, score));
+            }
+            Collections.sort(all);
+            List<ScoredWord> top = selector.getSorted();
+            assertEquals(Math.min(k, all.size()), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals(all.get(i).word, top.get(i).word);
+                assertEquals(all.get(i).score, top.get(i).score);
+            }
+        }
+    }
+}